@@ -0,0 +1,105 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceDecorator;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import bguspl.set.ex.Table;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks of the table queries the dealer runs on every wakeup, with 3-card sets (indexed by pair completion) and
+ * 4-card sets (indexed by testing combinations).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    @Param({"3", "4"})
+    public int featureSize;
+
+    @Param({"4", "6"})
+    public int featureCount;
+
+    @Param({"3"})
+    public int rows;
+
+    @Param({"4", "27"})
+    public int columns;
+
+    private Table table;
+
+    /**
+     * Two cards that are not on the table, swapped in and out of slot 0 by replaceCard.
+     */
+    private int[] spareCards;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Properties properties = new Properties();
+        properties.setProperty("FeatureSize", Integer.toString(featureSize));
+        properties.setProperty("FeatureCount", Integer.toString(featureCount));
+        properties.setProperty("Rows", Integer.toString(rows));
+        properties.setProperty("Columns", Integer.toString(columns));
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("LogLevel", "OFF");
+        Logger logger = Logger.getLogger("benchmark");
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        Env env = new Env(logger, config, new UserInterfaceDecorator(logger, util, null), util);
+
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; card++)
+            deck.add(card);
+        Collections.shuffle(deck, new Random(0));
+        Integer[] slotToCard = new Integer[config.tableSize];
+        Integer[] cardToSlot = new Integer[config.deckSize];
+        for (int slot = 0; slot < Math.min(config.tableSize, config.deckSize); slot++) {
+            slotToCard[slot] = deck.get(slot);
+            cardToSlot[deck.get(slot)] = slot;
+        }
+        table = new Table(env, slotToCard, cardToSlot);
+        spareCards = new int[]{deck.get(deck.size() - 1), deck.get(deck.size() - 2)};
+        table.removeCard(0, slotToCard[0]);
+    }
+
+    @Benchmark
+    public boolean isThereSetsOnTable() {
+        return table.isThereSetsOnTable();
+    }
+
+    @Benchmark
+    public int replaceCard() {
+        next ^= 1;
+        table.placeCard(spareCards[next], 0);
+        table.removeCard(0, spareCards[next]);
+        return table.countSets();
+    }
+}
@@ -0,0 +1,134 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import bguspl.set.UtilPacked;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks of the set engine (Util implementations): 3-value features search by pair completion, the others by
+ * testing combinations, and both with the feature table or with packed cards. A packed configuration whose cards do not
+ * fit into a long fails its setup and is skipped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    @Param({"3", "4"})
+    public int featureSize;
+
+    @Param({"4", "6"})
+    public int featureCount;
+
+    /**
+     * The number of cards searched by findSets (capped by the deck size).
+     */
+    @Param({"12", "81"})
+    public int tableSize;
+
+    /**
+     * The Util implementation: "table" for UtilImpl, "packed" for UtilPacked.
+     */
+    @Param({"table", "packed"})
+    public String util;
+
+    private Util impl;
+    private List<Integer> cards;
+    private int[][] candidates;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Properties properties = new Properties();
+        properties.setProperty("FeatureSize", Integer.toString(featureSize));
+        properties.setProperty("FeatureCount", Integer.toString(featureCount));
+        properties.setProperty("LogLevel", "OFF");
+        Config config = new Config(Logger.getLogger("benchmark"), properties);
+        if (util.equals("packed") && !UtilPacked.fits(config))
+            throw new IllegalStateException("skipped: " + featureCount + " features of size " + featureSize + " do not fit into a long");
+        impl = util.equals("packed") ? new UtilPacked(config) : new UtilImpl(config);
+
+        Random random = new Random(0);
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; card++)
+            deck.add(card);
+        Collections.shuffle(deck, random);
+        cards = new ArrayList<>(deck.subList(0, Math.min(tableSize, deck.size())));
+
+        // a mix of legal and illegal sets
+        candidates = new int[1024][];
+        for (int i = 0; i < candidates.length; i++)
+            candidates[i] = i % 2 == 0 ? legalSet(config, random) : randomCards(config, random);
+    }
+
+    private static int[] randomCards(Config config, Random random) {
+        int[] cards = new int[config.featureSize];
+        for (int j = 0; j < cards.length; j++)
+            cards[j] = random.nextInt(config.deckSize);
+        return cards;
+    }
+
+    /**
+     * @return - a random legal set: every feature is the same in all the cards or different in all of them.
+     */
+    private static int[] legalSet(Config config, Random random) {
+        int[] cards = new int[config.featureSize];
+        List<Integer> values = new ArrayList<>();
+        for (int value = 0; value < config.featureSize; value++)
+            values.add(value);
+        for (int i = 0; i < config.featureCount; i++) {
+            boolean same = random.nextBoolean();
+            Collections.shuffle(values, random);
+            for (int j = 0; j < cards.length; j++)
+                cards[j] = cards[j] * config.featureSize + (same ? values.get(0) : values.get(j));
+        }
+        return cards;
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        next = (next + 1) & (candidates.length - 1);
+        return impl.testSet(candidates[next]);
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        next = (next + 1) & (candidates.length - 1);
+        return impl.cardsToFeatures(candidates[next]);
+    }
+
+    @Benchmark
+    public List<int[]> findOneSet() {
+        return impl.findSets(cards, 1);
+    }
+
+    @Benchmark
+    public List<int[]> findAllSets() {
+        return impl.findSets(cards, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,56 @@
+package bguspl.set;
+
+/**
+ * The source of time of a game, and the way the game's threads wait for time to pass or for each other.
+ * All the waiting of the dealer and the players goes through the clock, so a VirtualClock can tell when they all
+ * wait and move the time forward to the earliest deadline.
+ */
+public interface Clock {
+
+    /**
+     * The wall clock (System.nanoTime and LockSupport).
+     */
+    Clock SYSTEM = new SystemClock();
+
+    /**
+     * @return - the current time in nanoseconds (only meaningful relative to other values of the same clock).
+     */
+    long nanoTime();
+
+    /**
+     * Blocks the current thread until the deadline passes, the thread is unparked (see unpark) or interrupted.
+     * May also return for no reason, so the callers re-check what they wait for.
+     *
+     * @param blocker  - the object the thread waits on (shown in thread dumps).
+     * @param deadline - the deadline in nanoTime() terms, Long.MAX_VALUE to wait until unparked.
+     */
+    void parkUntil(Object blocker, long deadline);
+
+    /**
+     * Wakes up a thread blocked in parkUntil, or makes its next parkUntil return at once.
+     *
+     * @param thread - the thread.
+     */
+    void unpark(Thread thread);
+
+    /**
+     * Counts one more thread waiting through this clock. Called before the thread starts (or by the thread itself).
+     */
+    void register();
+
+    /**
+     * Stops counting the current thread, when it ends.
+     */
+    void deregister();
+
+    /**
+     * Waits until the time passes or the thread is interrupted.
+     *
+     * @param nanos - the time to wait in nanoseconds.
+     */
+    default void sleep(long nanos) {
+        long deadline = nanoTime() + nanos;
+        while (nanoTime() - deadline < 0 && !Thread.currentThread().isInterrupted())
+            parkUntil(this, deadline);
+    }
+}
@@ -7,6 +7,7 @@ import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -36,6 +37,47 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * Whether to represent cards packed into a long (see UtilPacked) instead of the feature table of UtilImpl
+     */
+    public final boolean packedCards;
+
+    /**
+     * The number of cards from which findSets searches in parallel on the common fork/join pool (0 never)
+     */
+    public final int parallelFindSetsThreshold;
+
+    /**
+     * The number of games to run in one process (more than 1 runs them in a GameHost, without a user interface)
+     */
+    public final int games;
+
+    /**
+     * The number of games a GameHost runs at the same time (0 all of them)
+     */
+    public final int concurrentGames;
+
+    /**
+     * Whether to run headless simulations: every game runs on its own VirtualClock, as fast as the CPU allows
+     */
+    public final boolean simulation;
+
+    /**
+     * How the player and AI loops run: "thread" (a thread each), "pooled" (on a shared pool) or "virtual" (JDK 21+)
+     */
+    public final String playerExecution;
+
+    /**
+     * The number of threads of the "pooled" player execution (0 for the number of processors)
+     */
+    public final int playerThreads;
+
+    /**
+     * The number of regions the table's slots are split into, each with its own verifier thread checking the claims
+     * within it (1 for the dealer thread alone)
+     */
+    public final int verifierShards;
+
     /**
      * The number of human players in the game.
      */
@@ -86,6 +128,11 @@ public class Config {
      */
     public final long endGamePauseMillies;
 
+    /**
+     * The seed of the game's randomness (see Seeds), a random one unless configured
+     */
+    public final long randomSeed;
+
     /**
      * The names of the players to display on the screen
      * Note: if there are more players than names, the remaining players will be called "Player 3", "Player 4", etc.
@@ -197,6 +244,16 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        packedCards = Boolean.parseBoolean(properties.getProperty("PackedCards", "False"));
+        parallelFindSetsThreshold = Integer.parseInt(properties.getProperty("ParallelFindSetsThreshold", "256"));
+
+        // hosting settings
+        games = Integer.parseInt(properties.getProperty("Games", "1"));
+        concurrentGames = Integer.parseInt(properties.getProperty("ConcurrentGames", "0"));
+        simulation = Boolean.parseBoolean(properties.getProperty("Simulation", "False"));
+        playerExecution = properties.getProperty("PlayerExecution", "thread").trim().toLowerCase();
+        playerThreads = Integer.parseInt(properties.getProperty("PlayerThreads", "0"));
+        verifierShards = Integer.parseInt(properties.getProperty("VerifierShards", "1"));
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
@@ -210,6 +267,8 @@ public class Config {
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
+        String seed = properties.getProperty("RandomSeed", "").trim();
+        randomSeed = seed.isEmpty() ? new Random().nextLong() : Long.parseLong(seed);
 
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
@@ -8,11 +8,26 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final PlayerExecutor playerExecutor;
+    public final Clock clock;
+    public final Seeds seeds;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, new ThreadPlayerExecutor(false));
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, PlayerExecutor playerExecutor) {
+        this(logger, config, ui, util, playerExecutor, Clock.SYSTEM, new Seeds(config.randomSeed));
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, PlayerExecutor playerExecutor, Clock clock,
+               Seeds seeds) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.playerExecutor = playerExecutor;
+        this.clock = clock;
+        this.seeds = seeds;
     }
 }
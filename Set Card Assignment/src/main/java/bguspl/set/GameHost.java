@@ -0,0 +1,164 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * This class runs many independent games in one process, without a user interface.
+ * The games share the configuration, the Util (with its card tables), a bounded pool of dealer threads and the
+ * PlayerExecutor running the loops of all their players, while
+ * every game has its own table, dealer, players and logger (writing to the host's log with a "game n:" prefix).
+ * In a simulation (config.simulation) every game also has its own VirtualClock and PlayerExecutor, so the game's
+ * time only passes when all its threads wait, and the game runs as fast as the CPU allows.
+ */
+public class GameHost {
+
+    /**
+     * The host's logger, the parent of the games' loggers.
+     */
+    private final Logger logger;
+
+    /**
+     * The configuration and the Util shared by all the games.
+     */
+    private final Config config;
+    private final Util util;
+
+    /**
+     * The number of games to run.
+     */
+    private final int games;
+
+    /**
+     * The pool of dealer threads, running up to config.concurrentGames games at the same time.
+     */
+    private final ExecutorService dealers;
+
+    /**
+     * The executor running the loops of the players of all the games (null in a simulation).
+     */
+    private final PlayerExecutor playerExecutor;
+
+    /**
+     * The dealer of every game that is currently running (null before and after).
+     */
+    private final AtomicReferenceArray<Dealer> running;
+
+    /**
+     * True iff the host should stop all its games.
+     */
+    private volatile boolean terminate;
+
+    /**
+     * @param logger - the host's logger.
+     * @param config - the configuration of all the games.
+     * @param util   - the Util shared by all the games.
+     */
+    public GameHost(Logger logger, Config config, Util util) {
+        this.logger = logger;
+        this.config = config;
+        this.util = util;
+        games = Math.max(config.games, 1);
+        running = new AtomicReferenceArray<>(games);
+        int threads = config.concurrentGames > 0 ? Math.min(config.concurrentGames, games) : games;
+        AtomicInteger created = new AtomicInteger();
+        dealers = Executors.newFixedThreadPool(threads, task -> new Thread(task, "host-dealer-" + created.getAndIncrement()));
+        playerExecutor = config.simulation ? null : PlayerExecutor.create(logger, config, Clock.SYSTEM);
+    }
+
+    /**
+     * Runs all the games and waits for them to finish.
+     *
+     * @throws InterruptedException - if the calling thread was interrupted while waiting (the games keep running).
+     */
+    public void run() throws InterruptedException {
+        logger.info((config.simulation ? "simulating " : "hosting ") + games + " games with random seed " + config.randomSeed + ".");
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            int game = i;
+            dealers.execute(() -> play(game));
+        }
+        dealers.shutdown();
+        dealers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        if (playerExecutor != null) playerExecutor.shutdown();
+        long elapsed = System.nanoTime() - start;
+        logger.info("all " + games + " games finished after " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms ("
+                + String.format("%.2f", games * 1e9 / Math.max(elapsed, 1)) + " games per second).");
+    }
+
+    /**
+     * Creates a game and runs its dealer on the current (pool) thread until the game ends.
+     *
+     * @param game - the game number.
+     */
+    private void play(int game) {
+        if (terminate) return;
+        Logger gameLogger = new GameLogger(logger, game);
+        Clock clock = config.simulation ? new VirtualClock() : Clock.SYSTEM;
+        PlayerExecutor executor = config.simulation ? PlayerExecutor.create(gameLogger, config, clock) : playerExecutor;
+        Env env = new Env(gameLogger, config, new UserInterfaceDecorator(gameLogger, util, null), util, executor, clock,
+                new Seeds(config.randomSeed).forGame(game));
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < config.humanPlayers);
+
+        running.set(game, dealer);
+        if (terminate) dealer.terminate();
+        long start = System.nanoTime();
+        long startTime = clock.nanoTime();
+        try {
+            dealer.run();
+        } finally {
+            running.set(game, null);
+            Thread.interrupted(); // the dealer interrupts itself when it terminates, don't pass it to the next game
+            if (executor != playerExecutor) executor.shutdown();
+            String took = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms";
+            if (clock != Clock.SYSTEM)
+                took += " (" + TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - startTime) + " ms of game time)";
+            gameLogger.info("game finished after " + took + ".");
+        }
+    }
+
+    /**
+     * Stops all the running games; the games that did not start yet are skipped.
+     */
+    public void terminate() {
+        terminate = true;
+        for (int i = 0; i < games; i++) {
+            Dealer dealer = running.get(i);
+            if (dealer != null) dealer.terminate();
+        }
+    }
+
+    /**
+     * A logger of one game: prefixes the messages with the game number and publishes them through the host's logger.
+     * It is not registered with the LogManager, so finished games do not leave loggers behind.
+     */
+    private static class GameLogger extends Logger {
+
+        private final String prefix;
+
+        GameLogger(Logger host, int game) {
+            super(host.getName() + ".game" + game, null);
+            prefix = "game " + game + ": ";
+            setParent(host);
+        }
+
+        @Override
+        public void log(LogRecord record) {
+            record.setMessage(prefix + record.getMessage());
+            super.log(record);
+        }
+    }
+}
@@ -43,24 +43,31 @@ public class Main {
         logger = initLogger();
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
-        Util util = new UtilImpl(config);
+        Util util = createUtil(logger, config);
+
+        if (config.games > 1 || config.simulation) {
+            hostGames(config, util);
+            return;
+        }
 
         Player[] players = new Player[config.players];
-        UserInterface ui = null;
+        UserInterfaceSwing swing = null;
         try {
-            ui = new UserInterfaceSwing(logger, config, players);
+            swing = new UserInterfaceSwing(logger, config, players);
         } catch (UnsupportedOperationException | IllegalArgumentException e) {
             logger.severe("error creating swing user interface: " + e.getMessage());
             logger.severe("will try to run without user interface");
             if (config.humanPlayers > 0)
                 logger.severe("warning: running with human players with no user interface");
         }
-        ui = new UserInterfaceDecorator(logger, util, ui);
+        UserInterface ui = new UserInterfaceDecorator(logger, util, swing);
 
-        Env env = new Env(logger, config, ui, util);
+        Env env = new Env(logger, config, ui, util, PlayerExecutor.create(logger, config, Clock.SYSTEM));
 
         // create the game entities
         Table table = new Table(env);
+        if (swing != null)
+            swing.setTable(table);
         dealer = new Dealer(env, table, players);
         for (int i = 0; i < players.length; i++)
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
@@ -79,10 +86,39 @@ public class Main {
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
+            env.playerExecutor.shutdown();
+            for (Handler h : logger.getHandlers()) h.flush();
+        }
+    }
+
+    /**
+     * Runs config.games games at the same time in a GameHost (with no user interface) and waits for them to finish.
+     * Simulations always run in a GameHost, even a single game.
+     */
+    private static void hostGames(Config config, Util util) {
+        if (config.humanPlayers > 0)
+            logger.severe("warning: hosted games have no user interface, human players will not play");
+        GameHost host = new GameHost(logger, config, util);
+        try {
+            host.run();
+        } catch (InterruptedException e) {
+            host.terminate();
+        } finally {
+            System.out.println("Thanks for playing... it was fun!");
+            ThreadLogger.logStop(logger, Thread.currentThread().getName());
             for (Handler h : logger.getHandlers()) h.flush();
         }
     }
 
+    private static Util createUtil(Logger logger, Config config) {
+        if (!config.packedCards)
+            return new UtilImpl(config);
+        if (UtilPacked.fits(config))
+            return new UtilPacked(config);
+        logger.severe("warning: cards do not fit into a long, using the feature table instead of packed cards.");
+        return new UtilImpl(config);
+    }
+
     private static Logger initLogger() {
 
         //just to make our log file nicer :)
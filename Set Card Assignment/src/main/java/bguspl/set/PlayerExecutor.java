@@ -0,0 +1,90 @@
+package bguspl.set;
+
+import java.util.logging.Logger;
+
+/**
+ * Runs the loops of the players and of their AIs.
+ * A loop is a sequence of steps: a step does the work that can be done now and returns how long to wait before the
+ * next step. A loop also steps again as soon as it is woken up, so a step must re-check the state it waits for.
+ * Steps never block for long, except on the table while the dealer works on it (see ForkJoinPool.managedBlock).
+ */
+public interface PlayerExecutor {
+
+    /**
+     * A step result: wait until woken up.
+     */
+    long IDLE = Long.MAX_VALUE;
+
+    /**
+     * A step result: the loop is finished.
+     */
+    long DONE = -1;
+
+    /**
+     * The loop of a player or an AI.
+     */
+    interface Loop {
+
+        /**
+         * @return - the time to wait before the next step in nanoseconds (0 step again now), IDLE or DONE.
+         */
+        long step();
+    }
+
+    /**
+     * A handle of a running loop.
+     */
+    interface Worker {
+
+        /**
+         * Makes the loop step again (now, or as soon as its current step returns).
+         */
+        void wakeup();
+    }
+
+    /**
+     * Starts running a loop.
+     *
+     * @param loop - the loop.
+     * @param name - the name of the loop (e.g. "player0").
+     * @return - the handle of the running loop.
+     */
+    Worker start(Loop loop, String name);
+
+    /**
+     * Releases the threads of the executor once all its loops are done.
+     */
+    void shutdown();
+
+    /**
+     * Creates the executor selected by config.playerExecution: "thread" (a platform thread per loop), "pooled" (all
+     * the loops share config.playerThreads threads) or "virtual" (a virtual thread per loop, JDK 21 and above).
+     * The loops wait through the given clock; the pool's timer only knows the wall clock, so a game on another clock
+     * gets a thread per loop instead.
+     *
+     * @param logger - the logger to report a fallback to.
+     * @param config - the game configuration.
+     * @param clock  - the clock of the games the executor runs.
+     * @return - the executor.
+     */
+    static PlayerExecutor create(Logger logger, Config config, Clock clock) {
+        String execution = config.playerExecution;
+        if (execution.equals("virtual") && !ThreadPlayerExecutor.virtualThreadsAvailable()) {
+            logger.severe("warning: virtual threads are not available in this JVM, using a thread pool instead.");
+            execution = "pooled";
+        }
+        switch (execution) {
+            case "virtual":
+                return new ThreadPlayerExecutor(true, clock);
+            case "pooled":
+                if (clock == Clock.SYSTEM)
+                    return new PooledPlayerExecutor(config.playerThreads, logger);
+                logger.severe("warning: the pooled player execution needs the system clock, using a thread per player.");
+                return new ThreadPlayerExecutor(false, clock);
+            default:
+                if (!execution.equals("thread"))
+                    logger.severe("warning: unknown player execution " + execution + ", using a thread per player.");
+                return new ThreadPlayerExecutor(false, clock);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package bguspl.set;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A PlayerExecutor that runs the steps of all the loops as tasks of one fork/join pool, so a loop holds a thread
+ * only while it steps. A waiting loop is stepped again when it is woken up or, if it waits for a time, by a timer.
+ */
+public class PooledPlayerExecutor implements PlayerExecutor {
+
+    /**
+     * The pool running the steps.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The timer waking up the loops that wait for a time.
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * The logger reporting the steps that failed.
+     */
+    private final Logger logger;
+
+    /**
+     * @param threads - the number of threads stepping the loops (0 for the number of processors).
+     * @param logger  - the logger reporting the steps that failed.
+     */
+    public PooledPlayerExecutor(int threads, Logger logger) {
+        this.logger = logger;
+        AtomicInteger created = new AtomicInteger();
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("player-pool-" + created.getAndIncrement());
+            return thread;
+        }, null, true);
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "player-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        timer = scheduler;
+    }
+
+    @Override
+    public Worker start(Loop loop, String name) {
+        PooledWorker worker = new PooledWorker(loop, name);
+        pool.execute(worker);
+        return worker;
+    }
+
+    @Override
+    public void shutdown() {
+        timer.shutdownNow();
+        pool.shutdown();
+    }
+
+    /**
+     * The states of a pooled loop.
+     */
+    private static final int WAITING = 0;
+    private static final int SCHEDULED = 1;
+    private static final int STEPPING = 2;
+    private static final int WOKEN = 3;
+    private static final int FINISHED = 4;
+
+    /**
+     * Steps a loop as a pool task. A loop is never stepped by two threads at the same time.
+     * A step that throws is logged and the loop waits for its next wakeup, rather than being dropped from the pool.
+     */
+    private class PooledWorker implements Worker, Runnable {
+
+        private final Loop loop;
+        private final String name;
+        private final AtomicInteger state = new AtomicInteger(SCHEDULED);
+
+        PooledWorker(Loop loop, String name) {
+            this.loop = loop;
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            state.set(STEPPING);
+            long wait;
+            try {
+                wait = loop.step();
+            } catch (VirtualMachineError e) {
+                state.set(FINISHED);
+                throw e;
+            } catch (RuntimeException | Error e) {
+                logger.log(Level.SEVERE, "a step of " + name + " failed, it steps again when woken up", e);
+                wait = IDLE;
+            }
+            if (wait == DONE) {
+                state.set(FINISHED);
+            } else if (wait == 0 || !state.compareAndSet(STEPPING, WAITING)) { // step again, or woken while stepping
+                state.set(SCHEDULED);
+                pool.execute(this);
+            } else if (wait != IDLE && !timer.isShutdown()) {
+                timer.schedule(this::wakeup, wait, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public void wakeup() {
+            while (true) {
+                int current = state.get();
+                if (current == WAITING && state.compareAndSet(WAITING, SCHEDULED)) {
+                    pool.execute(this);
+                    return;
+                }
+                if (current == STEPPING && state.compareAndSet(STEPPING, WOKEN)) return;
+                if (current == SCHEDULED || current == WOKEN || current == FINISHED) return;
+            }
+        }
+    }
+}
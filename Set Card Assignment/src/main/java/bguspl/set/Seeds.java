@@ -0,0 +1,70 @@
+package bguspl.set;
+
+import java.util.Random;
+
+/**
+ * The randomness of a game, derived from one seed: every component (the deck, the dealer, the layout planner, every
+ * computer player) gets its own Random, seeded from the game's seed and the component's id. A game can then be
+ * replayed with the same deals and the same AI choices by running it again with the same seed (config.randomSeed).
+ */
+public final class Seeds {
+
+    /**
+     * The components of a game that use randomness.
+     */
+    public static final int DECK = 0;
+    public static final int DEALER = 1;
+    public static final int PLAYER = 2;
+    public static final int PLANNER = 3;
+
+    /**
+     * The seed the randomness of the game is derived from.
+     */
+    private final long seed;
+
+    /**
+     * @param seed - the seed the randomness of the game is derived from.
+     */
+    public Seeds(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return - the seed the randomness of the game is derived from.
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * @param game - the game number.
+     * @return - the seeds of one of the games run by a GameHost.
+     */
+    public Seeds forGame(int game) {
+        return new Seeds(mix(seed, -1, game));
+    }
+
+    /**
+     * @param component - the component (DECK, DEALER, PLAYER or PLANNER).
+     * @param index     - the index of the component (e.g. the player id), 0 if there is only one.
+     * @return - a new source of randomness for the component, the same for the same seed, component and index.
+     */
+    public Random random(int component, int index) {
+        return new Random(mix(seed, component, index));
+    }
+
+    /**
+     * Mixes the seed with a component and an index (the SplitMix64 finalizer), so nearby ids get unrelated seeds.
+     */
+    private static long mix(long seed, int component, int index) {
+        long z = seed + 0x9E3779B97F4A7C15L * (((long) component << 32 | index & 0xFFFFFFFFL) + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(seed);
+    }
+}
@@ -0,0 +1,212 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A live index of the sets formed by a changing collection of cards.
+ * Adding or removing a card only touches the sets that involve that card: with 3-value features these are found
+ * by completing the card with every other card (O(n)), otherwise by testing the combinations that include it.
+ * This class is not thread safe.
+ */
+public class SetIndex {
+
+    private final Util util;
+
+    /**
+     * The number of cards in a set.
+     */
+    private final int setSize;
+
+    /**
+     * The cards in the index (dense) and the position of every card in it (-1 if not in the index).
+     */
+    private final int[] members;
+    private final int[] memberPosition;
+    private int memberCount;
+
+    /**
+     * The cards of all the sets, setSize consecutive cards (sorted) per set, or null if only the sets are counted.
+     */
+    private int[] sets;
+    private int setCount;
+
+    /**
+     * The position of every set in the sets array, by its key (see key method).
+     */
+    private final Map<Long, Integer> setPosition;
+
+    /**
+     * Reusable buffers for the cards of a candidate set and the member indices of a combination.
+     */
+    private final int[] candidate;
+    private final int[] combination;
+
+    /**
+     * @param util      - the utilities used to test and complete sets.
+     * @param config    - the game configuration.
+     * @param keepSets  - true iff the sets should be kept for listing, otherwise they are only counted.
+     */
+    public SetIndex(Util util, Config config, boolean keepSets) {
+        this.util = util;
+        setSize = config.featureSize;
+        members = new int[config.deckSize];
+        memberPosition = new int[config.deckSize];
+        Arrays.fill(memberPosition, -1);
+        sets = keepSets ? new int[setSize * 16] : null;
+        setPosition = keepSets ? new HashMap<>() : null;
+        candidate = new int[setSize];
+        combination = new int[setSize - 1];
+    }
+
+    /**
+     * @return - the number of sets formed by the cards in the index.
+     */
+    public int count() {
+        return setCount;
+    }
+
+    /**
+     * @return - the number of cards in the index.
+     */
+    public int size() {
+        return memberCount;
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - true iff the card is in the index.
+     */
+    public boolean contains(int card) {
+        return memberPosition[card] >= 0;
+    }
+
+    /**
+     * Adds a card to the index together with every set it forms with the cards already in it.
+     *
+     * @param card - the card id.
+     * @post - contains(card)
+     */
+    public void add(int card) {
+        if (contains(card)) return;
+        forEachSetWith(card, true);
+        memberPosition[card] = memberCount;
+        members[memberCount++] = card;
+    }
+
+    /**
+     * Removes a card from the index together with every set it is part of.
+     *
+     * @param card - the card id.
+     * @post - !contains(card)
+     */
+    public void remove(int card) {
+        int position = memberPosition[card];
+        if (position < 0) return;
+        int last = members[--memberCount];
+        members[position] = last;
+        memberPosition[last] = position;
+        memberPosition[card] = -1;
+        forEachSetWith(card, false);
+    }
+
+    /**
+     * Returns copies of all the sets in the index (only if the sets are kept).
+     *
+     * @return - a list of integer arrays, each one contains the sorted card ids of a set.
+     */
+    public List<int[]> sets() {
+        List<int[]> list = new LinkedList<>();
+        if (sets != null)
+            for (int i = 0; i < setCount; ++i)
+                list.add(Arrays.copyOfRange(sets, i * setSize, (i + 1) * setSize));
+        return list;
+    }
+
+    /**
+     * Copies the cards of a set in the index to the given array (only if the sets are kept).
+     *
+     * @param set   - the index of the set, between 0 and count() - 1.
+     * @param cards - an array of at least featureSize cards.
+     */
+    public void getSet(int set, int[] cards) {
+        System.arraycopy(sets, set * setSize, cards, 0, setSize);
+    }
+
+    /**
+     * Adds or removes all the sets formed by the given card (not in the index) and the cards in the index.
+     */
+    private void forEachSetWith(int card, boolean add) {
+        if (setSize == 3) {
+            for (int i = 0; i < memberCount; ++i) {
+                int other = members[i];
+                int third = util.completeSet(card, other);
+                if (third > other && contains(third)) {
+                    candidate[0] = card;
+                    candidate[1] = other;
+                    candidate[2] = third;
+                    update(add);
+                }
+            }
+            return;
+        }
+
+        // test every combination of setSize - 1 cards in the index together with the card
+        int r = combination.length;
+        if (memberCount < r) return;
+        for (int i = 0; i < r; ++i)
+            combination[i] = i;
+        while (true) {
+            candidate[0] = card;
+            for (int i = 0; i < r; ++i)
+                candidate[i + 1] = members[combination[i]];
+            if (util.testSet(candidate))
+                update(add);
+
+            int t = r - 1;
+            while (t >= 0 && combination[t] == memberCount - r + t) --t;
+            if (t < 0) return;
+            combination[t]++;
+            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        }
+    }
+
+    /**
+     * Adds or removes the set in the candidate buffer.
+     */
+    private void update(boolean add) {
+        if (sets == null) {
+            setCount += add ? 1 : -1;
+            return;
+        }
+
+        Arrays.sort(candidate);
+        long key = key(candidate, 0);
+        if (add) {
+            if (sets.length < (setCount + 1) * setSize)
+                sets = Arrays.copyOf(sets, sets.length * 2);
+            System.arraycopy(candidate, 0, sets, setCount * setSize, setSize);
+            setPosition.put(key, setCount++);
+        } else {
+            Integer position = setPosition.remove(key);
+            if (position == null) return;
+            if (position != --setCount) {
+                System.arraycopy(sets, setCount * setSize, sets, position * setSize, setSize);
+                setPosition.put(key(sets, position * setSize), position);
+            }
+        }
+    }
+
+    /**
+     * @return - a key identifying the set of setSize sorted cards starting at the given offset.
+     */
+    private long key(int[] cards, int offset) {
+        long key = 0;
+        for (int i = 0; i < setSize; ++i)
+            key = key * members.length + cards[offset + i];
+        return key;
+    }
+}
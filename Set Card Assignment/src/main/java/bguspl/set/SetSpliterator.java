@@ -0,0 +1,165 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A lazy cursor over the sets in a collection of cards.
+ * Every set found is copied (sorted) into the same caller supplied buffer, so iterating allocates nothing.
+ * The candidates are partitioned by the index of their first card, which is also how the cursor is split.
+ * It only needs the Util's set test and set completion, so any Util implementation can return it.
+ */
+public class SetSpliterator implements Spliterator<int[]> {
+
+    /**
+     * The utilities used to test and complete sets.
+     */
+    private final Util util;
+
+    /**
+     * The cards searched (shared with all the spliterators split from this one).
+     */
+    private final int[] cards;
+
+    /**
+     * Card presence bitset of the searched cards, or null if the sets are not found by pair completion.
+     */
+    private final long[] present;
+
+    /**
+     * The array receiving each set found.
+     */
+    private final int[] buffer;
+
+    /**
+     * The indices of the next candidate cards (only used if the sets are not found by pair completion).
+     */
+    private final int[] combination;
+
+    /**
+     * The index of the first card of the next candidate and the index after the last one this cursor covers.
+     */
+    private int first;
+    private int fence;
+
+    /**
+     * The index of the second card of the next candidate (only used if the sets are found by pair completion).
+     */
+    private int second;
+
+    /**
+     * @param util    - the utilities used to test and complete sets.
+     * @param cards   - the cards to search.
+     * @param present - card presence bitset of the cards, to find the sets by pair completion (see
+     *                Util.completeSet), or null to test every combination of buffer.length cards.
+     * @param buffer  - the array receiving each set found.
+     * @param origin  - the index of the first card of the first candidate.
+     * @param fence   - the index after the first card of the last candidate.
+     */
+    public SetSpliterator(Util util, int[] cards, long[] present, int[] buffer, int origin, int fence) {
+        this.util = util;
+        this.cards = cards;
+        this.present = present;
+        this.buffer = buffer;
+        this.fence = fence;
+        combination = present == null ? new int[buffer.length] : null;
+        moveTo(origin);
+    }
+
+    private void moveTo(int first) {
+        this.first = first;
+        second = first + 1;
+        if (combination != null) {
+            if (first + combination.length > cards.length) this.first = fence;
+            else for (int i = 0; i < combination.length; ++i)
+                combination[i] = first + i;
+        }
+    }
+
+    /**
+     * Moves the cursor to the next set and copies its cards (sorted) into the buffer.
+     *
+     * @return - true iff another set was found.
+     */
+    public boolean next() {
+        return present != null ? nextByPairCompletion() : nextByCombination();
+    }
+
+    private boolean nextByPairCompletion() {
+        while (first < fence) {
+            int a = cards[first];
+            while (second < cards.length) {
+                int b = cards[second++];
+                int c = util.completeSet(a, b);
+                if (c > a && c > b && (present[c >>> 6] & 1L << c) != 0) {
+                    buffer[0] = Math.min(a, b);
+                    buffer[1] = Math.max(a, b);
+                    buffer[2] = c;
+                    return true;
+                }
+            }
+            moveTo(first + 1);
+        }
+        return false;
+    }
+
+    private boolean nextByCombination() {
+        int n = cards.length;
+        int r = combination.length;
+        while (first < fence) {
+            for (int i = 0; i < r; ++i)
+                buffer[i] = cards[combination[i]];
+            boolean found = util.testSet(buffer);
+
+            // generate next combination in lexicographic order
+            int t = r - 1;
+            while (t != 0 && combination[t] == n - r + t) --t;
+            if (t == 0) moveTo(first + 1);
+            else {
+                combination[t]++;
+                for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+            }
+
+            if (found) {
+                Arrays.sort(buffer);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return - the buffer holding the cards of the current set.
+     */
+    public int[] current() {
+        return buffer;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action) {
+        if (!next()) return false;
+        action.accept(buffer);
+        return true;
+    }
+
+    @Override
+    public Spliterator<int[]> trySplit() {
+        int origin = first + 1;
+        int middle = (origin + fence) >>> 1;
+        if (middle <= origin) return null;
+        SetSpliterator split = new SetSpliterator(util, cards, present, new int[buffer.length], middle, fence);
+        fence = middle;
+        return split;
+    }
+
+    @Override
+    public long estimateSize() {
+        return (long) Math.max(fence - first, 0) * cards.length;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+}
@@ -0,0 +1,35 @@
+package bguspl.set;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The wall clock: time passes on its own.
+ */
+public class SystemClock implements Clock {
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void parkUntil(Object blocker, long deadline) {
+        if (deadline == Long.MAX_VALUE)
+            LockSupport.park(blocker);
+        else
+            LockSupport.parkNanos(blocker, deadline - System.nanoTime());
+    }
+
+    @Override
+    public void unpark(Thread thread) {
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void register() {
+    }
+
+    @Override
+    public void deregister() {
+    }
+}
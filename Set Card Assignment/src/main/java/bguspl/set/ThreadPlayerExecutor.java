@@ -0,0 +1,142 @@
+package bguspl.set;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * A PlayerExecutor that runs every loop on its own thread, parking the thread (through the game's clock) between
+ * the steps.
+ * The threads are platform threads, or virtual threads (created by reflection, the code targets Java 8) which
+ * release their carrier thread while parked.
+ */
+public class ThreadPlayerExecutor implements PlayerExecutor {
+
+    /**
+     * Thread.ofVirtual(), Thread.Builder.name(String) and Thread.Builder.unstarted(Runnable), null before JDK 21.
+     */
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method UNSTARTED;
+
+    static {
+        Method ofVirtual = null, name = null, unstarted = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+        } catch (ClassNotFoundException | NoSuchMethodException ignored) {}
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+    }
+
+    /**
+     * True iff the loops run on virtual threads.
+     */
+    private final boolean virtual;
+
+    /**
+     * The clock the threads wait through.
+     */
+    private final Clock clock;
+
+    /**
+     * @param virtual - true to run the loops on virtual threads.
+     * @pre - !virtual || virtualThreadsAvailable()
+     */
+    public ThreadPlayerExecutor(boolean virtual) {
+        this(virtual, Clock.SYSTEM);
+    }
+
+    /**
+     * @param virtual - true to run the loops on virtual threads.
+     * @param clock   - the clock the threads wait through.
+     * @pre - !virtual || virtualThreadsAvailable()
+     */
+    public ThreadPlayerExecutor(boolean virtual, Clock clock) {
+        this.virtual = virtual;
+        this.clock = clock;
+    }
+
+    /**
+     * @return - true iff this JVM can create virtual threads.
+     */
+    public static boolean virtualThreadsAvailable() {
+        if (OF_VIRTUAL == null) return false;
+        try {
+            OF_VIRTUAL.invoke(null);
+            return true;
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            return false; // e.g. a preview feature that is not enabled
+        }
+    }
+
+    @Override
+    public Worker start(Loop loop, String name) {
+        ThreadWorker worker = new ThreadWorker(loop, clock);
+        worker.thread = virtual ? newVirtualThread(worker, name) : new Thread(worker, name);
+        clock.register();
+        worker.thread.start();
+        return worker;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    /**
+     * Runs a loop on the current thread until it is done, parking the thread through the clock between the steps (a
+     * wakeup of the loop is an unpark of the thread), then deregisters the thread from the clock.
+     *
+     * @param loop    - the loop.
+     * @param clock   - the clock the thread waits through.
+     * @param blocker - the object the thread parks on (shown in thread dumps).
+     * @pre - the thread is registered with the clock.
+     */
+    public static void runLoop(Loop loop, Clock clock, Object blocker) {
+        try {
+            for (long wait = loop.step(); wait != DONE; wait = loop.step()) {
+                if (wait == IDLE) clock.parkUntil(blocker, Long.MAX_VALUE);
+                else if (wait > 0) clock.parkUntil(blocker, clock.nanoTime() + wait);
+                else Thread.yield();
+            }
+        } finally {
+            clock.deregister();
+        }
+    }
+
+    private static Thread newVirtualThread(Runnable task, String name) {
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+            return (Thread) UNSTARTED.invoke(builder, task);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("cannot create a virtual thread", e);
+        }
+    }
+
+    /**
+     * Runs the steps of a loop on one thread.
+     */
+    private static class ThreadWorker implements Worker, Runnable {
+
+        private final Loop loop;
+        private final Clock clock;
+        private Thread thread;
+
+        ThreadWorker(Loop loop, Clock clock) {
+            this.loop = loop;
+            this.clock = clock;
+        }
+
+        @Override
+        public void run() {
+            runLoop(loop, clock, this);
+        }
+
+        @Override
+        public void wakeup() {
+            clock.unpark(thread); // a wakeup before the thread parks makes the next park return at once
+        }
+    }
+}
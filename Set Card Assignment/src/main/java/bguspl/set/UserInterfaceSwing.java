@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
 
 import javax.swing.*;
 import java.awt.*;
@@ -24,6 +25,11 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
     private final WinnerPanel winnerPanel;
     private final Config config;
 
+    /**
+     * The table whose tokens are shown (null until setTable is called, no tokens are shown before that).
+     */
+    private volatile Table table;
+
     static String intInBaseToPaddedString(int n, int padding, int base) {
         return format("%" + padding + "s", Integer.toString(n, base)).replace(' ', '0');
     }
@@ -69,6 +75,15 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         EventQueue.invokeLater(() -> setVisible(true));
     }
 
+    /**
+     * Sets the table the tokens are read from: the token methods only tell which slots to redraw, the tokens on them
+     * are read from the table's bitmaps, so the window never keeps a copy of its own.
+     * @param table - the table of the game.
+     */
+    public void setTable(Table table) {
+        this.table = table;
+    }
+
     private class TimerPanel extends JPanel {
 
         private final JLabel timerField;
@@ -105,7 +120,6 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         private final Image emptyCard;
         private final Image[] deck;
         private final Image[][] grid;
-        private final boolean[][][] playerTokens;
         private final JLabel[][] tokenText;
 
         private Image loadImageResource(String filename) {
@@ -130,7 +144,6 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
             grid = new Image[config.rows][config.columns];
             tokenText = new JLabel[config.rows][config.columns];
-            playerTokens = new boolean[config.players][config.rows][config.columns];
             for (int row = 0; row < config.rows; row++) {
                 for (int column = 0; column < config.columns; column++) {
                     // init the cards on the table grid as empty cards
@@ -164,38 +177,38 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             repaint();
         }
 
-        private void placeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = true;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+        private void placeCards(int[] cards, int[] slots) {
+            for (int i = 0; i < cards.length; i++)
+                grid[slots[i] / config.columns][slots[i] % config.columns] = deck[cards[i]];
+            validate();
+            repaint();
         }
 
-        private void removeTokens() {
-            for (int i = 0; i < config.tableSize; i++)
-                removeTokens(i);
+        private void removeCards(int[] slots) {
+            for (int slot : slots)
+                grid[slot / config.columns][slot % config.columns] = emptyCard;
+            validate();
+            repaint();
         }
 
-        private void removeTokens(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            for (int player = 0; player < playerTokens.length; player++) {
-                playerTokens[player][row][column] = false;
-                tokenText[row][column].setText(generatePlayersTokenText(row, column));
-            }
+        private void updateTokens() {
+            for (int i = 0; i < config.tableSize; i++)
+                updateTokens(i);
         }
 
-        private void removeToken(int player, int slot) {
+        private void updateTokens(int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            playerTokens[player][row][column] = false;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            tokenText[row][column].setText(generatePlayersTokenText(slot));
         }
 
-        private String generatePlayersTokenText(int row, int column) {
+        private String generatePlayersTokenText(int slot) {
+            Table table = UserInterfaceSwing.this.table;
+            if (table == null)
+                return "";
             String text = "";
             for (int player = 0; player < config.players; player++) {
-                if (playerTokens[player][row][column])
+                if (table.hasToken(player, slot))
                     text = text.concat(config.playerNames[player] + ", ");
             }
             if (text.length() < 2)
@@ -284,24 +297,34 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         gamePanel.removeCard(slot);
     }
 
+    @Override
+    public void placeCards(int[] cards, int[] slots) {
+        gamePanel.placeCards(cards, slots);
+    }
+
+    @Override
+    public void removeCards(int[] slots) {
+        gamePanel.removeCards(slots);
+    }
+
     @Override
     public void placeToken(int player, int slot) {
-        gamePanel.placeToken(player, slot);
+        gamePanel.updateTokens(slot);
     }
 
     @Override
     public void removeTokens() {
-        gamePanel.removeTokens();
+        gamePanel.updateTokens();
     }
 
     @Override
     public void removeTokens(int slot) {
-        gamePanel.removeTokens(slot);
+        gamePanel.updateTokens(slot);
     }
 
     @Override
     public void removeToken(int player, int slot) {
-        gamePanel.removeToken(player, slot);
+        gamePanel.updateTokens(slot);
     }
 
     @Override
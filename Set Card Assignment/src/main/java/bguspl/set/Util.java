@@ -1,6 +1,8 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -31,6 +33,15 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Finds the only card that forms a set with the two given cards (only when sets are made of 3 cards).
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the card completing the set, or -1 if a set is not determined by two cards.
+     */
+    int completeSet(int first, int second);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +51,26 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Creates a lazy cursor over the sets in the given collection of cards.
+     * Every set found is copied into the given buffer, so iterating allocates nothing (copy a set to keep it).
+     *
+     * @param deck   - a collection of cards (null objects are skipped).
+     * @param buffer - an array of featureSize cards that receives the cards of each set found.
+     * @return - a spliterator over the sets, that can be split for parallel traversal.
+     */
+    Spliterator<int[]> setSpliterator(List<Integer> deck, int[] buffer);
+
+    /**
+     * Streams the sets in the given collection of cards, finding them only as they are consumed.
+     * Each split of the stream reuses one array for all of its sets (copy a set to keep it).
+     *
+     * @param deck     - a collection of cards (null objects are skipped).
+     * @param parallel - true iff the returned stream should be parallel.
+     * @return - a stream of integer arrays, each one contains the card ids of a legal set.
+     */
+    Stream<int[]> streamSets(List<Integer> deck, boolean parallel);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -3,25 +3,87 @@ package bguspl.set;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The implementation of the UserInterface interface.
  */
 public class UtilImpl implements Util {
 
-    private final Config config;
+    /**
+     * The number of cards in a set that is fully determined by any two of its cards.
+     */
+    private static final int PAIR_COMPLETION_SET_SIZE = 3;
+
+    /**
+     * The largest deck for which the pair to third card lookup table is precomputed (larger decks compute it).
+     */
+    private static final int MAX_LOOKUP_DECK_SIZE = 1024;
+
+    protected final Config config;
+
+    /**
+     * The features of every card in the deck, decoded once: features[card * featureCount + i] is feature i of card.
+     */
+    private final int[] features;
+
+    /**
+     * The card that completes each pair of cards to a set: thirdCard[a * deckSize + b] (null if not precomputed).
+     */
+    private final int[] thirdCard;
+
+    /**
+     * Per thread scratch buffers for findSets: the cards being searched and a card presence bitset.
+     */
+    private final ThreadLocal<int[]> scratchCards;
+    private final ThreadLocal<long[]> scratchPresence;
 
     public UtilImpl(Config config) {
         this.config = config;
+        features = new int[config.deckSize * config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card)
+            for (int i = config.featureCount - 1, value = card; i >= 0; --i, value /= config.featureSize)
+                features[card * config.featureCount + i] = value % config.featureSize;
+        scratchCards = ThreadLocal.withInitial(() -> new int[config.deckSize]);
+        scratchPresence = ThreadLocal.withInitial(() -> new long[(config.deckSize + 63) / 64]);
+
+        if (config.featureSize == PAIR_COMPLETION_SET_SIZE && config.deckSize <= MAX_LOOKUP_DECK_SIZE) {
+            thirdCard = new int[config.deckSize * config.deckSize];
+            for (int a = 0; a < config.deckSize; ++a)
+                for (int b = 0; b < config.deckSize; ++b)
+                    thirdCard[a * config.deckSize + b] = computeThirdCard(a, b);
+        } else thirdCard = null;
     }
 
-    private void cardToFeatures(int card, int[] features) {
-        for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
-            card /= config.featureSize;
+    /**
+     * Computes the only card that forms a set with the two given cards: per feature, -(a + b) mod featureSize.
+     */
+    private int computeThirdCard(int a, int b) {
+        int third = 0;
+        for (int i = 0, weight = 1; i < config.featureCount; ++i, weight *= config.featureSize) {
+            int featureA = a % config.featureSize, featureB = b % config.featureSize;
+            third += (2 * config.featureSize - featureA - featureB) % config.featureSize * weight;
+            a /= config.featureSize;
+            b /= config.featureSize;
         }
+        return third;
+    }
+
+    int thirdCard(int a, int b) {
+        return thirdCard != null ? thirdCard[a * config.deckSize + b] : computeThirdCard(a, b);
+    }
+
+    private void cardToFeatures(int card, int[] features) {
+        System.arraycopy(this.features, card * config.featureCount, features, 0, config.featureCount);
     }
 
     @Override
@@ -34,30 +96,35 @@ public class UtilImpl implements Util {
     @Override
     public int[][] cardsToFeatures(int[] cards) {
         int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        for (int i = 0; i < cards.length; ++i)
+            cardToFeatures(cards[i], features[i]);
         return features;
     }
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
+        if (cards.length == 0) return false;
+        int featureCount = config.featureCount;
+        for (int i = 0; i < featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
 
             // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
+            int first = features[cards[0] * featureCount + i];
+            for (int j = 1; j < cards.length; ++j)
+                if (features[cards[j] * featureCount + i] != first) {
                     sameSame = false;
                     break;
                 }
 
             // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
+            for (int j = 0; j < cards.length - 1 && butDifferent; ++j) {
+                int feature = features[cards[j] * featureCount + i];
+                for (int k = j + 1; k < cards.length; ++k)
+                    if (feature == features[cards[k] * featureCount + i]) {
                         butDifferent = false;
                         break;
                     }
+            }
 
             if (sameSame == butDifferent) return false;
         }
@@ -66,6 +133,77 @@ public class UtilImpl implements Util {
 
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        if (config.parallelFindSetsThreshold > 0 && deck.size() >= config.parallelFindSetsThreshold
+                && ForkJoinPool.getCommonPoolParallelism() > 1)
+            return findSetsInParallel(deck, count);
+        if (config.featureSize == PAIR_COMPLETION_SET_SIZE)
+            return findSetsByPairCompletion(deck, count);
+        return findSetsByCombinations(deck, count);
+    }
+
+    @Override
+    public int completeSet(int first, int second) {
+        return config.featureSize == PAIR_COMPLETION_SET_SIZE ? thirdCard(first, second) : -1;
+    }
+
+    @Override
+    public Spliterator<int[]> setSpliterator(List<Integer> deck, int[] buffer) {
+        if (buffer.length != config.featureSize)
+            throw new IllegalArgumentException("buffer length " + buffer.length + " is not the set size " + config.featureSize);
+        int[] cards = deck.stream().filter(Objects::nonNull).mapToInt(Integer::intValue).toArray();
+        long[] present = null;
+        if (config.featureSize == PAIR_COMPLETION_SET_SIZE) {
+            present = new long[(config.deckSize + 63) / 64];
+            for (int card : cards)
+                present[card >>> 6] |= 1L << card;
+        }
+        return new SetSpliterator(this, cards, present, buffer, 0, cards.length);
+    }
+
+    @Override
+    public Stream<int[]> streamSets(List<Integer> deck, boolean parallel) {
+        return StreamSupport.stream(setSpliterator(deck, new int[config.featureSize]), parallel);
+    }
+
+    /**
+     * Finds sets in O(n^2): every pair of cards is completed to its third card which is then looked up in a
+     * presence bitset. Each set is reported once, from the pair of its two lowest cards.
+     */
+    private List<int[]> findSetsByPairCompletion(List<Integer> deck, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        int[] cards = scratchCards.get();
+        long[] present = scratchPresence.get();
+
+        int n = 0;
+        for (Integer card : deck)
+            if (card != null) {
+                cards[n++] = card;
+                present[card >>> 6] |= 1L << card;
+            }
+
+        try {
+            for (int i = 0; i < n - 1; ++i) {
+                int a = cards[i];
+                for (int j = i + 1; j < n; ++j) {
+                    int b = cards[j];
+                    int c = thirdCard(a, b);
+                    if (c > a && c > b && (present[c >>> 6] & 1L << c) != 0) {
+                        sets.add(a < b ? new int[]{a, b, c} : new int[]{b, a, c});
+                        if (sets.size() >= count) return sets;
+                    }
+                }
+            }
+            return sets;
+        } finally {
+            for (int i = 0; i < n; ++i)
+                present[cards[i] >>> 6] = 0;
+        }
+    }
+
+    /**
+     * Finds sets by testing every combination of featureSize cards in lexicographic order.
+     */
+    private List<int[]> findSetsByCombinations(List<Integer> deck, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
         int n = deck.size();
         int r = config.featureSize;
@@ -90,6 +228,123 @@ public class UtilImpl implements Util {
         return sets;
     }
 
+    /**
+     * Finds sets with a fork/join search that partitions the candidates by the index of their first card.
+     * All workers stop as soon as count sets were found.
+     */
+    private List<int[]> findSetsInParallel(List<Integer> deck, int count) {
+        int[] cards = deck.stream().filter(Objects::nonNull).mapToInt(Integer::intValue).toArray();
+        long[] present = new long[(config.deckSize + 63) / 64];
+        for (int card : cards)
+            present[card >>> 6] |= 1L << card;
+
+        SetSearch search = new SetSearch(cards, present, count);
+        ForkJoinPool.commonPool().invoke(new SetSearchTask(search, 0, cards.length));
+        return new LinkedList<>(search.sets);
+    }
+
+    /**
+     * The state shared by all the tasks of one parallel search.
+     */
+    private class SetSearch {
+
+        private final int[] cards;
+        private final long[] present;
+        private final int count;
+        private final AtomicInteger found = new AtomicInteger();
+        private final Queue<int[]> sets = new ConcurrentLinkedQueue<>();
+
+        private SetSearch(int[] cards, long[] present, int count) {
+            this.cards = cards;
+            this.present = present;
+            this.count = count;
+        }
+
+        private boolean done() {
+            return found.get() >= count;
+        }
+
+        private void report(int[] set) {
+            if (found.incrementAndGet() <= count)
+                sets.add(set);
+        }
+
+        /**
+         * Searches all sets whose lowest index card is cards[first].
+         */
+        private void searchFrom(int first) {
+            if (config.featureSize == PAIR_COMPLETION_SET_SIZE) {
+                int a = cards[first];
+                for (int j = first + 1; j < cards.length && !done(); ++j) {
+                    int b = cards[j];
+                    int c = thirdCard(a, b);
+                    if (c > a && c > b && (present[c >>> 6] & 1L << c) != 0)
+                        report(a < b ? new int[]{a, b, c} : new int[]{b, a, c});
+                }
+                return;
+            }
+
+            int n = cards.length;
+            int r = config.featureSize;
+            if (n - first < r) return;
+            int[] combination = new int[r];
+            int[] candidate = new int[r];
+            for (int i = 0; i < r; ++i)
+                combination[i] = first + i;
+
+            while (!done()) {
+                for (int i = 0; i < r; ++i)
+                    candidate[i] = cards[combination[i]];
+                if (testSet(candidate)) {
+                    int[] set = candidate.clone();
+                    Arrays.sort(set);
+                    report(set);
+                }
+
+                // generate next combination in lexicographic order, keeping the first card
+                int t = r - 1;
+                while (t != 0 && combination[t] == n - r + t) --t;
+                if (t == 0) return;
+                combination[t]++;
+                for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+            }
+        }
+    }
+
+    /**
+     * A task of a parallel search: searches the sets whose lowest index card is in [from, to).
+     */
+    private static class SetSearchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The number of first card indices below which a task searches sequentially.
+         */
+        private static final int SEQUENTIAL_THRESHOLD = 4;
+
+        private final SetSearch search;
+        private final int from;
+        private final int to;
+
+        private SetSearchTask(SetSearch search, int from, int to) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int first = from; first < to && !search.done(); ++first)
+                    search.searchFrom(first);
+            } else if (!search.done()) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SetSearchTask(search, from, middle), new SetSearchTask(search, middle, to));
+            }
+        }
+    }
+
     public void spin() {
         if (config.randomSpinMax <= 0) return;
         long cycles = ThreadLocalRandom.current().nextLong(config.randomSpinMin, config.randomSpinMax);
@@ -0,0 +1,94 @@
+package bguspl.set;
+
+/**
+ * An implementation of the Util interface that packs every card into a long.
+ * Each feature gets a field of featureSize bits plus a guard bit, and the feature value is stored one-hot in it.
+ * A full set (featureSize cards) is then tested across all features at once with a few shift/add/mask operations:
+ * per field, the OR of the cards equals their AND iff the feature is the same in all cards, and the OR has all
+ * featureSize bits set iff the feature is different in all cards.
+ */
+public class UtilPacked extends UtilImpl {
+
+    /**
+     * The packed representation of every card in the deck.
+     */
+    private final long[] packedCards;
+
+    /**
+     * The value bits of all fields.
+     */
+    private final long valueMask;
+
+    /**
+     * The guard bit of all fields.
+     */
+    private final long guardMask;
+
+    /**
+     * Checks if the cards of the given configuration fit into a long.
+     *
+     * @param config - the game configuration.
+     * @return - true iff featureCount fields of featureSize + 1 bits fit into 64 bits.
+     */
+    public static boolean fits(Config config) {
+        return (long) config.featureCount * (config.featureSize + 1) <= Long.SIZE;
+    }
+
+    public UtilPacked(Config config) {
+        super(config);
+        if (!fits(config))
+            throw new IllegalArgumentException("cannot pack " + config.featureCount + " features of size " + config.featureSize + " into a long");
+
+        int width = config.featureSize + 1;
+        long fieldMask = (1L << config.featureSize) - 1;
+        long values = 0, guards = 0;
+        for (int i = 0; i < config.featureCount; ++i) {
+            values |= fieldMask << (i * width);
+            guards |= 1L << (i * width + config.featureSize);
+        }
+        valueMask = values;
+        guardMask = guards;
+
+        packedCards = new long[config.deckSize];
+        for (int card = 0; card < config.deckSize; ++card) {
+            int[] features = cardToFeatures(card);
+            for (int i = 0; i < config.featureCount; ++i)
+                packedCards[card] |= 1L << (i * width + features[i]);
+        }
+    }
+
+    /**
+     * Returns the packed representation of a card.
+     *
+     * @param card - the card id.
+     * @return - the card features, one-hot encoded in fields of featureSize + 1 bits.
+     */
+    public long packCard(int card) {
+        return packedCards[card];
+    }
+
+    /**
+     * Checks if featureSize packed cards form a legal set, given the OR and the AND of all of them.
+     *
+     * @param or  - the bitwise OR of the packed cards.
+     * @param and - the bitwise AND of the packed cards.
+     * @return - true iff every feature is either the same in all cards or different in all cards.
+     */
+    public boolean testPackedSet(long or, long and) {
+        // adding the value mask carries into the guard bit of every field that is not zero
+        long notSame = ((or ^ and) + valueMask) & guardMask;
+        long notDifferent = ((or ^ valueMask) + valueMask) & guardMask;
+        return (notSame & notDifferent) == 0;
+    }
+
+    @Override
+    public boolean testSet(int[] cards) {
+        if (cards.length != config.featureSize) return super.testSet(cards);
+        long or = 0, and = -1;
+        for (int card : cards) {
+            or |= packedCards[card];
+            and &= packedCards[card];
+        }
+        return testPackedSet(or, and);
+    }
+}
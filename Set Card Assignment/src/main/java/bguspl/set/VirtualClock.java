@@ -0,0 +1,107 @@
+package bguspl.set;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A clock for headless simulations: time only passes when every registered thread waits through the clock, and
+ * then it jumps to the earliest deadline. A game then runs as fast as the CPU allows, with the same timing rules
+ * (freezes, table delays, the turn timeout) as on the wall clock.
+ */
+public class VirtualClock implements Clock {
+
+    /**
+     * The current time.
+     */
+    private long now;
+
+    /**
+     * The number of threads waiting through this clock while they run.
+     */
+    private int participants;
+
+    /**
+     * The deadline of every waiting thread (Long.MAX_VALUE for a thread waiting to be unparked).
+     */
+    private final Map<Thread, Long> deadlines = new HashMap<>();
+
+    /**
+     * The threads that were unparked while they did not wait.
+     */
+    private final Set<Thread> permits = new HashSet<>();
+
+    @Override
+    public synchronized long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public void parkUntil(Object blocker, long deadline) {
+        Thread current = Thread.currentThread();
+        synchronized (this) {
+            if (permits.remove(current) || deadline <= now || current.isInterrupted())
+                return;
+            deadlines.put(current, deadline);
+            advanceIfAllWait();
+        }
+        while (true) {
+            synchronized (this) {
+                if (!deadlines.containsKey(current))
+                    return;
+                if (current.isInterrupted()) {
+                    deadlines.remove(current);
+                    return;
+                }
+            }
+            LockSupport.park(blocker);
+        }
+    }
+
+    @Override
+    public void unpark(Thread thread) {
+        synchronized (this) {
+            if (deadlines.remove(thread) == null) {
+                permits.add(thread);
+                return;
+            }
+        }
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public synchronized void register() {
+        participants++;
+    }
+
+    @Override
+    public synchronized void deregister() {
+        participants--;
+        permits.remove(Thread.currentThread());
+        advanceIfAllWait();
+    }
+
+    /**
+     * If all the participants wait, moves the time to the earliest deadline and wakes up the threads waiting for it.
+     */
+    private void advanceIfAllWait() {
+        if (participants <= 0 || deadlines.size() < participants)
+            return;
+        long next = Long.MAX_VALUE;
+        for (long deadline : deadlines.values())
+            next = Math.min(next, deadline);
+        if (next == Long.MAX_VALUE)
+            return; // all wait to be unparked: only an outside thread (e.g. terminate) can go on
+        now = Math.max(now, next);
+        for (Iterator<Map.Entry<Thread, Long>> it = deadlines.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Thread, Long> entry = it.next();
+            if (entry.getValue() <= now) {
+                it.remove();
+                LockSupport.unpark(entry.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable record of a player's claim that his tokens mark a legal set, captured when the claim is submitted.
+ * The player reads its slots and tests the set itself, so the dealer only has to check that the slots did not change.
+ */
+public final class Claim {
+
+    /**
+     * Orders claims by their arrival (submit time, then player id).
+     */
+    public static final Comparator<Claim> ARRIVAL_ORDER = (a, b) -> a.submitTime != b.submitTime
+            ? Long.compare(a.submitTime, b.submitTime) : Integer.compare(a.player, b.player);
+
+    /**
+     * The id of the player that submitted the claim.
+     */
+    public final int player;
+
+    /**
+     * The slots of the player's tokens, the cards in them (-1 if a slot was empty) and the versions of the slots
+     * at submit time.
+     */
+    final int[] slots;
+    final int[] cards;
+    final long[] versions;
+
+    /**
+     * The verdict on the cards, found by the submitting player: true iff they are a legal set.
+     */
+    public final boolean legal;
+
+    /**
+     * The time (the game clock's nanoTime) the claim was submitted.
+     */
+    public final long submitTime;
+
+    /**
+     * A read-only list view of the slots.
+     */
+    private final List<Integer> slotList;
+
+    /**
+     * @param player     - the id of the player submitting the claim.
+     * @param slots      - the slots of the player's tokens.
+     * @param cards      - the cards in these slots (-1 if a slot is empty).
+     * @param versions   - the versions of these slots (see Table.readSlots).
+     * @param legal      - true iff the cards are a legal set.
+     * @param submitTime - the submit time (the game clock's nanoTime).
+     */
+    public Claim(int player, int[] slots, int[] cards, long[] versions, boolean legal, long submitTime) {
+        this.player = player;
+        this.slots = slots.clone();
+        this.cards = cards.clone();
+        this.versions = versions.clone();
+        this.legal = legal;
+        this.submitTime = submitTime;
+        Integer[] boxed = new Integer[slots.length];
+        for (int i = 0; i < slots.length; i++)
+            boxed[i] = slots[i];
+        slotList = Collections.unmodifiableList(Arrays.asList(boxed));
+    }
+
+    /**
+     * @return - a copy of the cards of the claim.
+     */
+    public int[] cards() {
+        return cards.clone();
+    }
+
+    /**
+     * @return - a read-only list of the slots of the claim.
+     */
+    public List<Integer> slots() {
+        return slotList;
+    }
+
+    /**
+     * Checks that the table still holds the claimed cards in the claimed slots, by the versions of the slots.
+     *
+     * @param table - the table.
+     * @return - true iff no claimed slot was empty or changed since the claim was submitted.
+     */
+    boolean isCurrent(Table table) {
+        for (int i = 0; i < slots.length; i++)
+            if (cards[i] == -1 || table.slotVersion(slots[i]) != versions[i]) return false;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "player " + (player + 1) + " slots " + Arrays.toString(slots) + " cards " + Arrays.toString(cards) + (legal ? " (legal)" : " (illegal)") + " submitted at " + submitTime;
+    }
+}
@@ -0,0 +1,192 @@
+package bguspl.set.ex;
+
+import bguspl.set.Clock;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free queue of the claims of the players waiting for the dealer to check their set (many players, one dealer).
+ * Every player has at most one claim in the queue, deduplicated through an atomic bitset, so a ring with one entry
+ * per player never overflows. Players never block; the dealer can block on the queue until a deadline.
+ *
+ * @inv a player is in the ring iff its state is QUEUED or CANCELLED
+ */
+public class ClaimQueue {
+
+    /**
+     * The states of a player, two bits per player in the state bitset.
+     */
+    private static final int IDLE = 0;
+    private static final int QUEUED = 1;
+    private static final int CANCELLED = 3;
+
+    /**
+     * The ring of claims in arrival order: player id + 1 per entry (0 if the entry is empty).
+     */
+    private final AtomicIntegerArray ring;
+
+    /**
+     * The ticket of the next claim to add (players) and of the next claim to take (dealer only).
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * The state of every player, 32 players per word.
+     */
+    private final AtomicLongArray states;
+
+    /**
+     * The claim of every player in the queue (only written by the player, while it is not QUEUED).
+     */
+    private final AtomicReferenceArray<Claim> claims;
+
+    /**
+     * The thread taking claims from the queue (null until it first waits).
+     */
+    private volatile Thread consumer;
+
+    /**
+     * The clock the dealer waits through.
+     */
+    private final Clock clock;
+
+    /**
+     * @param players - the number of players.
+     * @param clock   - the game's clock.
+     */
+    public ClaimQueue(int players, Clock clock) {
+        this.clock = clock;
+        ring = new AtomicIntegerArray(Math.max(players, 1));
+        states = new AtomicLongArray((players + 31) / 32);
+        claims = new AtomicReferenceArray<>(players);
+    }
+
+    private int state(int player) {
+        return (int) (states.get(player >>> 5) >>> shift(player)) & 3;
+    }
+
+    private static int shift(int player) {
+        return (player & 31) << 1;
+    }
+
+    /**
+     * Atomically changes the state of a player.
+     * @return - true iff the player was in the expected state.
+     */
+    private boolean changeState(int player, int expected, int state) {
+        int word = player >>> 5;
+        int shift = shift(player);
+        while (true) {
+            long bits = states.get(word);
+            if ((int) (bits >>> shift & 3) != expected) return false;
+            if (states.compareAndSet(word, bits, bits & ~(3L << shift) | (long) state << shift)) return true;
+        }
+    }
+
+    /**
+     * Adds the claim of a player, unless the player already has one in the queue.
+     *
+     * @param claim - the claim.
+     * @return - true iff the claim was added.
+     */
+    public boolean offer(Claim claim) {
+        int player = claim.player;
+        while (true) {
+            int state = state(player);
+            if (state == QUEUED) return false;
+            claims.set(player, claim);
+            if (state == CANCELLED && changeState(player, CANCELLED, QUEUED)) return true; // the entry is still in the ring
+            if (state == IDLE && changeState(player, IDLE, QUEUED)) break;
+        }
+        long ticket = tail.getAndIncrement();
+        ring.set((int) (ticket % ring.length()), player + 1);
+        Thread waiting = consumer;
+        if (waiting != null) clock.unpark(waiting);
+        return true;
+    }
+
+    /**
+     * Withdraws the claim of a player, if it is in the queue.
+     *
+     * @param player - the player id.
+     * @return - true iff the player had a claim in the queue.
+     */
+    public boolean cancel(int player) {
+        return changeState(player, QUEUED, CANCELLED);
+    }
+
+    /**
+     * @param player - the player id.
+     * @return - true iff the player has a claim in the queue.
+     */
+    public boolean contains(int player) {
+        return state(player) == QUEUED;
+    }
+
+    /**
+     * Takes the oldest claim from the queue (dealer only).
+     *
+     * @return - the claim, or null if the queue is empty.
+     */
+    public Claim poll() {
+        while (true) {
+            int index = (int) (head % ring.length());
+            int entry = ring.get(index);
+            if (entry == 0) return null; // empty, or the claim is not published yet
+            ring.set(index, 0);
+            head++;
+            int player = entry - 1;
+            while (true) {
+                int state = state(player);
+                if (changeState(player, state, IDLE)) {
+                    if (state == QUEUED) return claims.get(player);
+                    break; // the claim was cancelled
+                }
+            }
+        }
+    }
+
+    /**
+     * @return - true iff there may be a claim to take (dealer only).
+     */
+    public boolean isEmpty() {
+        return ring.get((int) (head % ring.length())) == 0;
+    }
+
+    /**
+     * Blocks until there is a claim to take, the deadline passes or the thread is interrupted (dealer only).
+     *
+     * @param deadlineNanos - the deadline, in the clock's nanoTime() terms.
+     */
+    public void await(long deadlineNanos) {
+        consumer = Thread.currentThread();
+        while (isEmpty() && !Thread.interrupted()) {
+            if (deadlineNanos - clock.nanoTime() <= 0) return;
+            clock.parkUntil(this, deadlineNanos);
+        }
+    }
+
+    /**
+     * Takes all the claims in the queue (dealer only).
+     *
+     * @param batch - an array with room for a claim of every player, receiving the claims.
+     * @return - the number of claims taken.
+     */
+    public int drain(Claim[] batch) {
+        int count = 0;
+        for (Claim claim = poll(); claim != null; claim = poll())
+            batch[count++] = claim;
+        return count;
+    }
+
+    /**
+     * Removes all the claims from the queue (dealer only).
+     */
+    public void clear() {
+        while (poll() != null) ;
+    }
+}
@@ -1,19 +1,22 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.Seeds;
 import bguspl.set.UserInterface;
 import bguspl.set.UserInterfaceDecorator;
 
 import java.lang.reflect.Array;
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * This class manages the dealer's threads and data
@@ -32,9 +35,31 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final Deck deck;
+
+    /**
+     * The source of randomness for choosing the slots of new cards.
+     */
+    private final Random random;
+
+    /**
+     * Plans the next layouts in the background, so the table holds a set whenever the cards in play allow it.
+     */
+    private final LayoutPlanner planner;
+
+    /**
+     * The verifier threads checking the claims of the table's regions in parallel (null without verifier shards),
+     * and the claims of every region in the current batch.
+     */
+    private final ExecutorService verifiers;
+    private final List<List<Claim>> regionClaims;
+
+    /**
+     * The sets that can still be collected: the sets formed by the cards in the deck and on the table.
+     */
+    private final SetsInPlay setsInPlay;
 
     /**
      * True iff game should be terminated due to an external event.
@@ -44,34 +69,32 @@ public class Dealer implements Runnable {
     /**
      * players Queue to check their set
      */
-    public Deque<Integer> CheckSetRequestQueue;
+    private final ClaimQueue CheckSetRequestQueue;
 
-    public volatile int CheckSetRequestQueueSize;
+    /**
+     * the claims taken from the queue to be checked together
+     */
+    private final Claim[] claimsBatch;
 
     /**
-     * The time when the dealer needs to reshuffle the deck due to turn timeout.
+     * The time (env.clock.nanoTime) when the dealer needs to reshuffle the deck due to turn timeout.
      */
     private long reshuffleTime = Long.MAX_VALUE;
 
     /**
-     * The amount of time the timer needs to sleep.
+     * The time (env.clock.nanoTime) when the countdown display needs to be updated next.
      */
-    private long sleep;
+    private long nextDisplayTime;
 
     /**
      * reference to dealer's thread
      */
     public Thread dealThread;
 
-    /**
-     * players threads array
-     */
-    private Thread[] ArrayPlayersThreads;
-
      /**
-     * 0.1 seconde in miliseconde.
+     * the countdown display interval during the warning, in miliseconde.
      */
-    private final long SECONDE_10 = 10;
+    private final long WARNING_TICK = 100;
     /**
      * one seconde in miliseconde.
      */
@@ -84,6 +107,10 @@ public class Dealer implements Runnable {
      * minute plus seconed in miliseconde.
      */
     private final long MINUTE = 60999;
+    /**
+     * one miliseconde in nanoseconde.
+     */
+    private final long MILLI = 1000000;
 
     /**
      *   state 1- gets penalty.
@@ -103,14 +130,28 @@ public class Dealer implements Runnable {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
-        CheckSetRequestQueue = new LinkedList<>();
-        reshuffleTime = env.config.turnTimeoutMillis;
-        sleep = SECONDE;
+        deck = new Deck(env.config.deckSize, env.seeds.random(Seeds.DECK, 0));
+        random = env.seeds.random(Seeds.DEALER, 0);
+        planner = new LayoutPlanner(env, env.seeds.random(Seeds.PLANNER, 0));
+        setsInPlay = new SetsInPlay(env);
+        CheckSetRequestQueue = new ClaimQueue(players.length, env.clock);
+        claimsBatch = new Claim[players.length];
+        int shards = Math.max(1, Math.min(env.config.verifierShards, env.config.tableSize));
+        if (shards > 1) {
+            AtomicInteger created = new AtomicInteger();
+            verifiers = Executors.newFixedThreadPool(shards, task -> {
+                Thread thread = new Thread(task, "verifier-" + created.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            verifiers = null;
+        }
+        regionClaims = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++)
+            regionClaims.add(new LinkedList<>());
         dealThread = Thread.currentThread();
-        ArrayPlayersThreads = new Thread[players.length];
         terminate = false;
-        CheckSetRequestQueueSize = 0;
     }
 
     /**
@@ -118,81 +159,177 @@ public class Dealer implements Runnable {
      */
     @Override
     public void run() {
-        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
-        startPlayersThreads(); // creats Players Threads
-        while (!shouldFinish()) {
-            placeCardsOnTable();
-            AblePlayersInsertTokens();
-            timerLoop();
-            UnablePlayersInsertTokens();
-            updateTimerDisplay(true);
-            removeAllCardsFromTable();
+        dealThread = Thread.currentThread();
+        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting (random seed " + env.seeds + ").");
+        env.clock.register(); // the dealer waits through the game's clock too
+        try {
+            startPlayersThreads(); // creats Players Threads
+            while (!shouldFinish()) {
+                placeCardsOnTable();
+                AblePlayersInsertTokens();
+                timerLoop();
+                UnablePlayersInsertTokens();
+                updateTimerDisplay(true);
+                removeAllCardsFromTable();
+            }
+            table.removeAllToken();
+            announceWinners();
+
+            env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
+            terminate();
+        } finally {
+            if (verifiers != null)
+                verifiers.shutdown();
+            env.clock.deregister();
         }
-        table.removeAllToken();
-        announceWinners();
-
-        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
-        terminate();
     }
 
     /**
      * The inner loop of the dealer thread that runs as long as the countdown did
-     * not time out.
+     * not time out. The dealer blocks until a player asks to check his set, the
+     * countdown display is due or the countdown times out.
      */
     private void timerLoop() {
-        reshuffleTime = System.currentTimeMillis() + MINUTE;
+        reshuffleTime = env.clock.nanoTime() + MINUTE * MILLI;
         AblePlayersInsertTokens();
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        updateTimerDisplay(true);
+        boolean layoutPlanned = false;
+        while (!terminate && env.clock.nanoTime() < reshuffleTime) {
             sleepUntilWokenOrTimeout();
-            updateTimerDisplay(true);
 
-            CheckSetFromQueue();
+            if (!CheckSetRequestQueue.isEmpty()) {
+                CheckSetFromQueue();
+                terminate = shouldFinish();
+            }
 
-            terminate = shouldFinish();
+            if (env.clock.nanoTime() >= nextDisplayTime)
+                updateTimerDisplay(false);
+
+            if (!layoutPlanned && reshuffleTime - env.clock.nanoTime() <= SECONDE_10_k * MILLI) {
+                synchronized (deck) { // once per round, when the warning starts: few cards change after that
+                    planNextLayout();
+                }
+                layoutPlanned = true;
+            }
+
+            if (env.config.hints)
+                table.hintsIfChanged(); // prints only when the cards changed, a tick with the same layout costs nothing
         }
         initAllPlayers();
     }
 
     /**
-     * check if their are sets waits to be checked and checks them.
+     * takes all the claims waiting to be checked and checks them in arrival order.
+     * a claim whose slots changed since it was submitted (e.g. an earlier claim of
+     * the batch took them) is stale: the player is only woken up to fix its tokens and claim again.
+     * with verifier shards, the claims of every region are checked in parallel (see checkInShards).
      */
     private void CheckSetFromQueue() {
-        boolean isThereLegalSet;
-        while (CheckSetRequestQueue.size() > 0) { // the queue is not empty
-            int PlayerId = CheckSetRequestQueue.removeLast();
-            List<Integer> slots1 = new LinkedList<Integer>(players[PlayerId].getTokenQueue());
-            List<Integer> slots2 = new LinkedList<Integer>(players[PlayerId].getTokenQueue());
-            List<Integer> slots3 = new LinkedList<Integer>(players[PlayerId].getTokenQueue());
-            List<Integer> slots4 = new LinkedList<Integer>(players[PlayerId].getTokenQueue());
-
-            isThereLegalSet = IsSet(slots1, PlayerId);
-            if (isThereLegalSet) {
-                players[PlayerId].state = STATE_2;
-                ArrayPlayersThreads[PlayerId].interrupt();
-                makePlayersRemoveTokensFromSlots(slots1);// remove the tokens from the slot in the players queue
-                table.flagIsdealerWorking = true;
-                table.removeTokensFromSpecifieSlot(slots4);// remove the tokens from the slot in the table
-                removeCardsFromTable(slots2);
-                placeCardsOnTable(slots3);
-                table.flagIsdealerWorking = false;
-            } else {
-                players[PlayerId].state = STATE_1;
-                ArrayPlayersThreads[PlayerId].interrupt();
-            }
+        int claims = CheckSetRequestQueue.drain(claimsBatch);
+        Arrays.sort(claimsBatch, 0, claims, Claim.ARRIVAL_ORDER);
+        if (verifiers == null) {
+            for (int i = 0; i < claims; i++)
+                checkClaim(claimsBatch[i]);
+        } else {
+            checkInShards(claims);
+        }
+        Arrays.fill(claimsBatch, 0, claims, null);
+    }
+
+    /**
+     * Splits the batch between the regions of the table: the claims within one region are checked in arrival order
+     * by a verifier thread, the regions in parallel (their claims touch different slots, so they cannot collide).
+     * The claims that span regions are checked after that on the dealer thread, when no verifier changes the table.
+     *
+     * @param claims - the number of claims in claimsBatch.
+     */
+    private void checkInShards(int claims) {
+        for (List<Claim> region : regionClaims)
+            region.clear();
+        List<Claim> crossRegion = new LinkedList<>();
+        for (int i = 0; i < claims; i++) {
+            int region = regionOf(claimsBatch[i]);
+            (region >= 0 ? regionClaims.get(region) : crossRegion).add(claimsBatch[i]);
+        }
+
+        AtomicInteger pending = new AtomicInteger();
+        for (List<Claim> region : regionClaims) {
+            if (region.isEmpty())
+                continue;
+            pending.incrementAndGet();
+            env.clock.register(); // for the verifier thread, so the game's clock waits for it
+            verifiers.execute(() -> {
+                try {
+                    for (Claim claim : region)
+                        checkClaim(claim);
+                } finally {
+                    env.clock.deregister();
+                    pending.decrementAndGet();
+                    env.clock.unpark(dealThread);
+                }
+            });
+        }
+        while (pending.get() > 0)
+            env.clock.parkUntil(this, Long.MAX_VALUE);
+
+        for (Claim claim : crossRegion)
+            checkClaim(claim);
+    }
+
+    /**
+     * @return - the region of all the slots of the claim, or -1 if they are in different regions.
+     */
+    private int regionOf(Claim claim) {
+        int region = -1;
+        for (int slot : claim.slots()) {
+            int slotRegion = slot * regionClaims.size() / env.config.tableSize;
+            if (region != -1 && region != slotRegion)
+                return -1;
+            region = slotRegion;
+        }
+        return region;
+    }
+
+    /**
+     * Checks one claim and gives the player its verdict; a legal set is collected and replaced from the deck.
+     * Runs on the dealer thread or on a verifier thread. Collecting a set only holds up the players touching its slots.
+     */
+    private void checkClaim(Claim claim) {
+        int PlayerId = claim.player;
+        if (!claim.isCurrent(table)) {
+            env.logger.log(Level.INFO, "stale claim of " + claim);
+            List<Integer> emptySlots = new LinkedList<>();
+            for (int slot : claim.slots())
+                if (table.cardAt(slot) == -1)
+                    emptySlots.add(slot);
+            makePlayersRemoveTokensFromSlots(emptySlots); // a token on an empty slot would make it stale again
+            players[PlayerId].canInsert = true; // let the player fix its tokens
+            players[PlayerId].wakeup();
+            players[PlayerId].wakeupAi();
+        } else if (IsSet(claim)) {
+            env.logger.log(Level.INFO, "legal set claim of " + claim);
+            players[PlayerId].state = STATE_2;
+            players[PlayerId].wakeup();
+            List<Integer> slots = claim.slots();
+            table.beginSlotsChange(slots);
+            makePlayersRemoveTokensFromSlots(slots);// remove the tokens from the slots of the set
+            removeCardsFromTable(slots);
+            placeCardsOnTable(new LinkedList<Integer>(slots), claim.cards());
+            table.endSlotsChange(slots);
+        } else {
+            env.logger.log(Level.INFO, "illegal set claim of " + claim);
+            players[PlayerId].state = STATE_1;
+            players[PlayerId].wakeup();
         }
     }
 
     /*
-     * Checks if The player has a legel Set, accordingly call point\panalized
+     * Checks if the cards of the claim are a legal set
      * return true if it is a legal set, otherwise false
+     * the player tested the cards when it claimed them, a current claim keeps its verdict
      */
-    public boolean IsSet(List<Integer> slots, int playerID) {
-        boolean isLegalSet;
-        int[] cards = new int[slots.size()];
-        for (int i = 0; i < cards.length; i++)
-            cards[i] = table.slotToCard[slots.get(i)];
-        isLegalSet = env.util.testSet(cards);
-        return isLegalSet;
+    public boolean IsSet(Claim claim) {
+        return claim.legal;
     }
 
     /**
@@ -202,10 +339,8 @@ public class Dealer implements Runnable {
     public void initAllPlayers() {
         for (int i = 0; i < players.length; i++) {
             players[i].InitPlayerAfterTimeRunOut();
-            ArrayPlayersThreads[i].interrupt();
-            if (!players[i].isHuman())
-                players[i].getAiThread().interrupt();
-            ;
+            players[i].wakeup();
+            players[i].wakeupAi();
         }
     }
 
@@ -219,42 +354,41 @@ public class Dealer implements Runnable {
     }
 
     /**
-     * change 'canInsert' field of all players to false- can't insert tokens
+     * change 'canInsert' field of all players to true- can insert tokens
      */
     private void AblePlayersInsertTokens() {
         for (int i = 0; i < players.length; i++) {
             players[i].canInsert = true;
+            players[i].wakeupAi();
         }
     }
 
     /**
      * The function is called when player had set
-     * removes token from player's queue if the token of the set was used.
+     * removes the tokens on the slots from the table, and lets their players know.
+     * only the players holding these slots are touched (the table knows them), not every player.
      * 
      * @param slots - the set to check
      */
     private void makePlayersRemoveTokensFromSlots(List<Integer> slots) {
-        boolean removedPlayersToken = false;
-        for (int i = 0; i < players.length; i++) {
-            removedPlayersToken = players[i].removeTokensFromQueue(slots);
-            if (removedPlayersToken) { // if we removed token of player, remove him from checkSetQueue
-                players[i].canInsert = true;
-                ArrayPlayersThreads[i].interrupt();
-                if (!players[i].isHuman())
-                    players[i].getAiThread().interrupt();
-            }
-        }
+        for (int player : table.removeTokensFromSpecifieSlot(slots))
+            players[player].tokensRemoved(); // remove him from checkSetQueue
+    }
+
+    /**
+     * @post - the dealer is not working on the table
+     * ends the dealer's work on the table and wakes up the AIs waiting for it to end.
+     */
+    private void endTableWork() {
+        table.setDealerWorking(false);
+        for (int i = 0; i < players.length; i++)
+            players[i].wakeupAi();
     }
 
-    // creats Players Threads
+    // starts the players' loops on the game's player executor
     private void startPlayersThreads() {
-        int i = 0;
-        while (i < players.length) {
-            Thread playerThread = new Thread(players[i], "player" + i);
-            ArrayPlayersThreads[i] = playerThread;
-            playerThread.start();
-            i++;
-        }
+        for (int i = 0; i < players.length; i++)
+            players[i].start();
     }
 
     /**
@@ -263,8 +397,8 @@ public class Dealer implements Runnable {
     public void terminate() {
         for (Player player : players)
             player.terminate();
-        Thread.currentThread().interrupt();
         terminate = true;
+        dealThread.interrupt(); // wake up the dealer if it waits
     }
 
     /**
@@ -273,7 +407,7 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return (terminate || (env.util.findSets(deck, 1).size() == 0 && table.isThereSetsOnTable()));
+        return terminate || !setsInPlay.any();
     }
 
     /**
@@ -281,9 +415,12 @@ public class Dealer implements Runnable {
      */
     private void removeCardsFromTable(List<Integer> slots) {
         if (slots.size() == SETSIZE) {
-            Thread.currentThread().interrupt();
-            for (int i = 0; i < slots.size(); i++) {
-                table.removeCard(slots.get(i), table.slotToCard[slots.get(i)]);// remove the cards from the table
+            int[] slotsToClear = new int[slots.size()];
+            for (int i = 0; i < slotsToClear.length; i++)
+                slotsToClear[i] = slots.get(i);
+            int[] removed = table.removeCards(slotsToClear); // remove the cards from the table
+            synchronized (deck) { // the verifiers share the deck and the sets in play
+                setsInPlay.remove(removed); // the cards are out of the game
             }
         }
     }
@@ -293,108 +430,109 @@ public class Dealer implements Runnable {
      * assumes that recieves empty table
      */
     private void placeCardsOnTable() {
-        table.flagIsdealerWorking = true;
+        table.setDealerWorking(true);
         int cardsInDeck = deck.size();
-        int numCardsToPlace = Math.min(env.config.tableSize, cardsInDeck); // limit the number of card to place
+        int[] freeSlots = table.freeSlots();
+        int numCardsToPlace = Math.min(freeSlots.length, cardsInDeck); // limit the number of card to place
          // according to the left amount in the deck
         if (numCardsToPlace > 0) { // there are remained cards in the Deck
-            List<Integer> slotList = new LinkedList<Integer>();
-            for (int j = 0; j < numCardsToPlace; j++) // creats list of the available slots
-                slotList.add(j);
-            Random rand = new Random();
-            for (int i = 0; i < numCardsToPlace; i++) {
-                int maxslot = slotList.size();
-                int randspotidlist = rand.nextInt(maxslot); // generate index in the list of the spots
-                int slot = slotList.get(randspotidlist); // slot - the value of the slot
-                int indexOfcard = rand.nextInt(deck.size());
-                int card = deck.get(indexOfcard); // card- the value of the card
-                table.placeCard(card, slot);
-                RemoveCardsFromDeck(indexOfcard); // after the card was placed on table- it is deleted from the deck
-                slotList.remove(randspotidlist); // the slot is no more availble
-            }
+            // the first free slots, the cards are drawn in a random order
+            int[] slots = Arrays.copyOf(freeSlots, numCardsToPlace);
+            int[] cards = planner.takeLayout(deck, numCardsToPlace); // the cards are removed from the deck
+            table.placeCards(cards, slots);
         }
-        table.flagIsdealerWorking = false;
+        planAhead();
+        endTableWork();
     }
 
     /*
      * place cards in Table if a legal set was found
-     */
-    private void placeCardsOnTable(List<Integer> slots) {
-        table.flagIsdealerWorking = true;
-        int cardsInDeck = deck.size();
-        int numCardsToPlace = Math.min(slots.size(), cardsInDeck); // limit the number of card to place according to the
-         // left amount in the deck
-        if (numCardsToPlace > 0) { // there are remained cards in the Deck
-            Random rand = new Random();
+     * the new cards are the planned replacement of the collected set, so the table keeps holding a set if it can
+     * the cards are taken from the deck under its lock, and placed (paying the table delay) outside it
+     * assumes the dealer is changing the slots (see Table.beginSlotsChange)
+     */
+    private void placeCardsOnTable(List<Integer> slots, int[] collected) {
+        int[] cards;
+        int[] slotsToFill;
+        synchronized (deck) { // the verifiers share the deck and the random source (the planner guards itself)
+            int cardsInDeck = deck.size();
+            int numCardsToPlace = Math.min(slots.size(), cardsInDeck); // limit the number of card to place according to the
+             // left amount in the deck
+            slotsToFill = new int[numCardsToPlace];
             for (int i = 0; i < numCardsToPlace; i++) {
                 int maxslot = slots.size();
-                int randspotidlist = rand.nextInt(maxslot); // generates a number between 0 to maxslot-1
-                int slot = slots.get(randspotidlist);
-                int indexOfCard = rand.nextInt(deck.size());
-                int card = deck.remove(indexOfCard);
-                table.placeCard(card, slot);
+                int randspotidlist = random.nextInt(maxslot); // generates a number between 0 to maxslot-1
+                slotsToFill[i] = slots.get(randspotidlist);
                 slots.remove(randspotidlist); // the slot is no more availble
             }
+            cards = planner.takeReplacement(collected, cardsOnTable(), deck, numCardsToPlace);
+        }
+        table.placeCards(cards, slotsToFill); // nothing to place if the deck is empty
+        synchronized (deck) {
+            planAhead();
         }
-        table.flagIsdealerWorking = false;
     }
 
     /**
-     * remove cards from the deck
+     * Starts planning the replacements of the sets on the table, from the current cards of the deck and the table.
      */
-    public void RemoveCardsFromDeck(int indexOfcard) {
-        deck.remove(indexOfcard);
+    private void planAhead() {
+        planner.planReplacements(cardsOnTable(), deck.toArray());
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some
-     * purpose.
+     * Starts planning the layout of the next round, from the current cards of the deck and the table.
      */
-    private void sleepUntilWokenOrTimeout() {
-        try {
-            Thread.sleep(sleep);
+    private void planNextLayout() {
+        int[] onTable = cardsOnTable();
+        int[] inDeck = deck.toArray();
+        int[] pool = Arrays.copyOf(inDeck, inDeck.length + onTable.length);
+        System.arraycopy(onTable, 0, pool, inDeck.length, onTable.length);
+        planner.planLayout(pool, Math.min(env.config.tableSize, pool.length));
+    }
 
-        } catch (InterruptedException wakeupDealer) {
-        }
+    /**
+     * @return - the cards on the table.
+     */
+    private int[] cardsOnTable() {
+        return table.snapshot().cards();
+    }
+
+    /**
+     * Sleep until the countdown display or the reshuffle is due, or until the
+     * thread is awakened for some purpose (a player asked to check his set).
+     */
+    private void sleepUntilWokenOrTimeout() {
+        CheckSetRequestQueue.await(Math.min(nextDisplayTime, reshuffleTime));
     }
 
     /**
-     * Reset and/or update the countdown and the countdown display.
+     * Reset and/or update the countdown and the countdown display, and schedule
+     * its next update: every WARNING_TICK during the warning, otherwise when the
+     * displayed second changes.
      */
     private void updateTimerDisplay(boolean reset) {
-        if (reshuffleTime - System.currentTimeMillis() < SECONDE_10_k && reshuffleTime - System.currentTimeMillis() > 0.000) {
-            sleep = SECONDE_10;
-            env.ui.setCountdown(Math.max(reshuffleTime - System.currentTimeMillis(), 0), true);
+        long now = env.clock.nanoTime();
+        long remaining = Math.max(reshuffleTime - now, 0);
+        if (remaining <= SECONDE_10_k * MILLI && remaining > 0) {
+            nextDisplayTime = now + WARNING_TICK * MILLI;
+            env.ui.setCountdown(remaining / MILLI, true);
         } else {
-            sleep = SECONDE;
-            env.ui.setCountdown(Math.max(reshuffleTime - System.currentTimeMillis(), 0), false);
+            long untilNextSecond = remaining % (SECONDE * MILLI);
+            nextDisplayTime = now + (untilNextSecond > 0 ? untilNextSecond : SECONDE * MILLI);
+            env.ui.setCountdown(remaining / MILLI, false);
         }
-
     }
 
     /**
      * Returns all the cards from the table to the deck.
      */
     private void removeAllCardsFromTable() {
-        table.flagIsdealerWorking = true;
+        table.setDealerWorking(true);
         table.removeAllToken();
-        Random rand = new Random();
-        int cardsOnTable = table.countCards();
-        List<Integer> slotsOnTable = table.slotsOnTable();
-        while (cardsOnTable > 0) {
-            int maxslot = slotsOnTable.size();
-            int randspotidlist = rand.nextInt(maxslot); // generate index in the list of the spots
-            int slot = slotsOnTable.get(randspotidlist); // slot - the value of the slot
-            if (table.slotToCard[slot] != null) {
-                int card = table.slotToCard[slot]; // card- the value of the card
-                deck.add(card);
-                table.removeCard(slot, card);
-                slotsOnTable.remove(randspotidlist); // the slot is no more availble
-                cardsOnTable = table.countCards();
-
-            }
-
-        }
+        for (int card : table.clearTable()) // all the cards leave the table at once
+            deck.add(card);
+        deck.shuffle();
         // remove all tokens from the players queue
         for (int i = 0; i < players.length; i++) {
             players[i].removeAllTokensFromQueue();// remove all the tokens from the players queue
@@ -403,30 +541,24 @@ public class Dealer implements Runnable {
         CheckSetRequestQueue.clear();
         // update timer
         updateTimerDisplay(true);
-        table.flagIsdealerWorking = false;
+        endTableWork();
         // table.notifyAllOnLock();
     }
 
     /**
-    * @pre CheckSetRequestQueue without playerID
-     * @post CheckSetRequestQueue with playerID in the the head of the queue
-     * Insert player Id of the player that need the dealer to check its queue.
+     * @post CheckSetRequestQueue with the claim in the the tail of the queue (if the player had none there already)
+     * Insert the claim of the player that need the dealer to check its queue.
      */
-    public void insertCheckSetQueue(int playerID) {
-        synchronized (this) {
-            if (!CheckSetRequestQueue.contains(playerID)) {
-                CheckSetRequestQueue.addFirst(playerID);
-                CheckSetRequestQueueSize++;
-            }
-        }
+    public void insertCheckSetQueue(Claim claim) {
+        CheckSetRequestQueue.offer(claim);
     }
 
     /**
-     * 
-     * @return CheckSetRequestQueue
+     * @post CheckSetRequestQueue without playerID
+     * Withdraw the request of a player whose tokens were removed before the dealer checked them.
      */
-    public Deque<Integer> getCheckSet() {
-        return CheckSetRequestQueue;
+    public void cancelCheckSet(int playerID) {
+        CheckSetRequestQueue.cancel(playerID);
     }
 
     /**
@@ -463,10 +595,10 @@ public class Dealer implements Runnable {
 
     /**
      * 
-     * @return deck
+     * @return a read-only view of the deck
      */
     public List<Integer> getDeck() {
-        return deck;
+        return deck.asList();
     }
 
 }
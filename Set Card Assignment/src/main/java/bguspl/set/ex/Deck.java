@@ -0,0 +1,179 @@
+package bguspl.set.ex;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class holds the cards left in the dealer's deck in a primitive array.
+ * Drawing swaps a random card with the last one and shrinks the deck (one step of a Fisher-Yates shuffle), so the
+ * cards come out in a uniformly random order and every draw or return is O(1). The position of every card is kept
+ * too, so looking a card up or taking a given card is O(1) as well.
+ */
+public class Deck {
+
+    /**
+     * The card ids in the deck: cards[0] to cards[size - 1].
+     */
+    private final int[] cards;
+    private int size;
+
+    /**
+     * The index of every card in cards (-1 if the card is not in the deck).
+     */
+    private final int[] positions;
+
+    /**
+     * The source of randomness for drawing cards.
+     */
+    private final Random random;
+
+    /**
+     * A read-only list view of the cards in the deck.
+     */
+    private final List<Integer> view;
+
+    /**
+     * Creates a deck with all the cards of the game.
+     *
+     * @param deckSize - the number of cards in the game.
+     * @param random   - the source of randomness for drawing cards.
+     */
+    public Deck(int deckSize, Random random) {
+        this.random = random;
+        cards = new int[deckSize];
+        positions = new int[deckSize];
+        for (int i = 0; i < deckSize; i++) {
+            cards[i] = i;
+            positions[i] = i;
+        }
+        size = deckSize;
+        view = new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                if (index >= size) throw new IndexOutOfBoundsException("index " + index + " size " + size);
+                return cards[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return - the number of cards in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return - true iff there are no cards in the deck.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Shuffles all the cards in the deck (Fisher-Yates).
+     */
+    public void shuffle() {
+        for (int i = size - 1; i > 0; i--)
+            swap(i, random.nextInt(i + 1));
+    }
+
+    /**
+     * Removes a random card from the deck.
+     *
+     * @return - the card id.
+     * @pre - !isEmpty()
+     */
+    public int draw() {
+        swap(size - 1, random.nextInt(size));
+        int card = cards[--size];
+        positions[card] = -1;
+        return card;
+    }
+
+    /**
+     * Removes up to n random cards from the deck.
+     *
+     * @param n - the number of cards to draw.
+     * @return - the card ids, min(n, size()) of them.
+     */
+    public int[] draw(int n) {
+        int[] drawn = new int[Math.min(n, size)];
+        for (int i = 0; i < drawn.length; i++)
+            drawn[i] = draw();
+        return drawn;
+    }
+
+    /**
+     * @param card - the card id.
+     * @return - true iff the card is in the deck.
+     */
+    public boolean contains(int card) {
+        return positions[card] >= 0;
+    }
+
+    /**
+     * @param cards - the card ids.
+     * @return - true iff all the cards are in the deck.
+     */
+    public boolean containsAll(int[] cards) {
+        for (int card : cards)
+            if (!contains(card))
+                return false;
+        return true;
+    }
+
+    /**
+     * Removes the given cards from the deck.
+     *
+     * @param taken - the card ids.
+     * @pre - containsAll(taken)
+     */
+    public void take(int[] taken) {
+        for (int card : taken) {
+            if (!contains(card))
+                continue;
+            swap(positions[card], --size);
+            positions[card] = -1;
+        }
+    }
+
+    /**
+     * @return - a copy of the cards in the deck.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(cards, size);
+    }
+
+    /**
+     * Returns a card to the deck.
+     *
+     * @param card - the card id.
+     */
+    public void add(int card) {
+        positions[card] = size;
+        cards[size++] = card;
+    }
+
+    /**
+     * @return - a read-only list view of the cards in the deck.
+     */
+    public List<Integer> asList() {
+        return view;
+    }
+
+    private void swap(int i, int j) {
+        int card = cards[i];
+        cards[i] = cards[j];
+        cards[j] = card;
+        positions[cards[i]] = i;
+        positions[card] = j;
+    }
+}
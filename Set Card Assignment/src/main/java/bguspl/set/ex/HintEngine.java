@@ -0,0 +1,140 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Gives the sets on the table for the hints, cached per sequence number of the table (see Table.snapshot): while the
+ * layout does not change, asking for the hints costs one read of the sequence number. When it did change, the sets
+ * are taken from the index the table keeps of its cards (see Table.setsOnTable) and turned into slots, nothing is
+ * searched again, unless the layout keeps changing under the refresh (see INDEX_TRIES).
+ * Nothing is locked while refreshing: threads refreshing together may both do the work, the newest hints are kept.
+ */
+class HintEngine {
+
+    /**
+     * The sets on the table at one snapshot of it.
+     */
+    static final class Hints {
+
+        /**
+         * The snapshot the sets were found in.
+         */
+        final TableSnapshot snapshot;
+
+        /**
+         * The sets, every one the sorted slots of its cards, in slot order (read-only).
+         */
+        final List<int[]> sets;
+
+        Hints(TableSnapshot snapshot, List<int[]> sets) {
+            this.snapshot = snapshot;
+            this.sets = sets;
+        }
+    }
+
+    /**
+     * The number of snapshots taken before the sets are searched in the cards of the last one rather than taken from
+     * the table's index, which is updated right after every change of the layout.
+     */
+    private static final int INDEX_TRIES = 4;
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The table the hints are given for.
+     */
+    private final Table table;
+
+    /**
+     * The latest hints found.
+     */
+    private volatile Hints current;
+
+    /**
+     * The sequence number of the last hints taken by takeUnprinted (-1 if none), guarded by this.
+     */
+    private long printed = -1;
+
+    /**
+     * @param env   - the game environment object.
+     * @param table - the table the hints are given for.
+     */
+    HintEngine(Env env, Table table) {
+        this.env = env;
+        this.table = table;
+    }
+
+    /**
+     * @return - the sets on the table now.
+     */
+    Hints current() {
+        TableSnapshot snapshot = table.snapshot();
+        Hints hints = current;
+        return hints != null && hints.snapshot.sequence == snapshot.sequence ? hints : refresh(snapshot);
+    }
+
+    /**
+     * @return - the sets on the table now, or null if they were already taken by this method for the same layout.
+     */
+    Hints takeUnprinted() {
+        Hints hints = current();
+        synchronized (this) {
+            if (hints.snapshot.sequence <= printed)
+                return null;
+            printed = hints.snapshot.sequence;
+            return hints;
+        }
+    }
+
+    /**
+     * Takes the sets of a snapshot from the table's index and lists them by slots. The table updates its index right
+     * after the layout, so a snapshot the index does not hold the cards of yet is taken again, a few times: if the
+     * layout keeps changing, the sets are searched in the cards of the last snapshot instead.
+     */
+    private Hints refresh(TableSnapshot snapshot) {
+        List<int[]> found = table.setsOnTable(snapshot);
+        for (int tries = 1; found == null && tries < INDEX_TRIES; tries++) {
+            Thread.yield();
+            snapshot = table.snapshot();
+            Hints hints = current;
+            if (hints != null && hints.snapshot.sequence == snapshot.sequence)
+                return hints; // another thread refreshed to it in the meantime
+            found = table.setsOnTable(snapshot);
+        }
+        if (found == null)
+            found = env.util.findSets(Arrays.stream(snapshot.cards()).boxed().collect(Collectors.toList()), Integer.MAX_VALUE);
+
+        List<int[]> sets = new ArrayList<>(found.size());
+        for (int[] set : found) {
+            for (int i = 0; i < set.length; i++)
+                set[i] = snapshot.slotOf(set[i]);
+            Arrays.sort(set);
+            sets.add(set);
+        }
+        sets.sort((a, b) -> {
+            for (int i = 0; i < a.length; i++)
+                if (a[i] != b[i])
+                    return Integer.compare(a[i], b[i]);
+            return 0;
+        });
+        return publish(new Hints(snapshot, Collections.unmodifiableList(sets)));
+    }
+
+    /**
+     * Caches hints, unless newer ones were cached in the meantime.
+     */
+    private synchronized Hints publish(Hints hints) {
+        if (current == null || current.snapshot.sequence < hints.snapshot.sequence)
+            current = hints;
+        return hints;
+    }
+}
@@ -0,0 +1,285 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.SetIndex;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plans the dealer's next cards in the background, so that the table holds a set whenever the cards in play allow it:
+ * the layout of the next round (after a reshuffle) and the replacement cards for every set on the table (the claims
+ * the players are likely to make). A plan is made from a snapshot of the cards, so when the dealer takes it, it is
+ * checked against the deck and repaired on the spot if some of its cards left the deck in the meantime. A plan that is
+ * not ready when the dealer needs it is dropped and the cards are chosen on the spot: the dealer never waits for the
+ * pool, which the plans of other games share.
+ * The plans of all the games run on one small pool of their own, so planning cannot crowd out the fork/join pool the
+ * set search uses, and a plan that was replaced before it started never runs.
+ * Thread safe: the dealer thread and the verifier threads call it. Its plans and its random source are guarded by its
+ * monitor, and taking cards also locks the deck, always before the planner (like the dealer, which locks the deck
+ * first), so a caller does not need to hold any lock.
+ */
+class LayoutPlanner {
+
+    /**
+     * The threads running the plans of all the games (daemons, half the processors).
+     */
+    private static final ExecutorService PLANNERS;
+
+    static {
+        AtomicInteger created = new AtomicInteger();
+        PLANNERS = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), task -> {
+            Thread thread = new Thread(task, "layout-planner-" + created.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The number of random choices tried before the planner builds a choice around a set.
+     */
+    private static final int RANDOM_TRIES = 8;
+
+    /**
+     * The number of cards of the pool a choice around a set looks for sets in (a random sample of a larger pool): with
+     * sets of more than 3 cards, indexing the sets of a whole deck tests every combination of its cards.
+     */
+    private static final int SET_CANDIDATES = 24;
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The source of the seeds of the plans (a plan gets its own Random, so plans running together stay reproducible),
+     * guarded by this.
+     */
+    private final Random random;
+
+    /**
+     * The layout of the next round (null if not planned), guarded by this.
+     */
+    private CompletableFuture<int[]> nextLayout;
+
+    /**
+     * The replacement cards for every set on the table, by the key of the set (null if not planned), guarded by this.
+     */
+    private CompletableFuture<Map<Long, int[]>> replacements;
+
+    /**
+     * @param env    - the game environment object.
+     * @param random - the source of the seeds of the plans.
+     */
+    LayoutPlanner(Env env, Random random) {
+        this.env = env;
+        this.random = random;
+    }
+
+    /**
+     * Starts planning the layout of the next round.
+     *
+     * @param pool - the cards the next layout can be drawn from (the deck and the cards on the table).
+     * @param n    - the number of cards in the layout.
+     */
+    synchronized void planLayout(int[] pool, int n) {
+        long seed = random.nextLong();
+        if (nextLayout != null)
+            nextLayout.cancel(false);
+        nextLayout = CompletableFuture.supplyAsync(() -> choose(new int[0], pool, n, new Random(seed)), PLANNERS);
+    }
+
+    /**
+     * Starts planning the replacement cards for every set among the given cards on the table.
+     *
+     * @param onTable - the cards on the table.
+     * @param inDeck  - the cards in the deck.
+     */
+    synchronized void planReplacements(int[] onTable, int[] inDeck) {
+        int n = Math.min(env.config.featureSize, inDeck.length);
+        if (replacements != null)
+            replacements.cancel(false); // not needed any more, it does not run if it did not start
+        if (n == 0) {
+            replacements = null;
+            return;
+        }
+        long seed = random.nextLong();
+        replacements = CompletableFuture.supplyAsync(() -> {
+            Random planRandom = new Random(seed);
+            Map<Long, int[]> planned = new HashMap<>();
+            SetIndex sets = index(onTable, true);
+            for (int[] set : sets.sets())
+                planned.put(key(set), choose(without(onTable, set), inDeck, n, planRandom));
+            return planned;
+        }, PLANNERS);
+    }
+
+    /**
+     * Takes the planned layout of the next round out of the deck. If some of its cards left the deck since it was
+     * planned, they are replaced by random cards of the deck, and only if that leaves no set (or the plan is not ready
+     * yet) the layout is chosen now.
+     *
+     * @param deck - the deck.
+     * @param n    - the number of cards to take.
+     * @return - the cards taken, min(n, deck.size()) of them.
+     */
+    int[] takeLayout(Deck deck, int n) {
+        synchronized (deck) {
+            synchronized (this) {
+                int[] cards = planned(nextLayout);
+                nextLayout = null;
+                if (cards != null)
+                    cards = repair(cards, deck, Math.min(n, deck.size()));
+                return take(cards, new int[0], deck, n);
+            }
+        }
+    }
+
+    /**
+     * Takes the planned replacement cards of a collected set out of the deck, or chooses them now if there is no plan
+     * for that set, it is out of date or not ready yet.
+     *
+     * @param set  - the cards of the collected set.
+     * @param kept - the cards left on the table.
+     * @param deck - the deck.
+     * @param n    - the number of cards to take.
+     * @return - the cards taken, min(n, deck.size()) of them.
+     */
+    int[] takeReplacement(int[] set, int[] kept, Deck deck, int n) {
+        synchronized (deck) {
+            synchronized (this) {
+                Map<Long, int[]> planned = planned(replacements);
+                int[] cards = planned != null ? planned.get(key(set.clone())) : null;
+                replacements = null;
+                return take(cards, kept, deck, n);
+            }
+        }
+    }
+
+    /**
+     * Gives up a plan, without waiting for it: a plan that is not done yet is cancelled.
+     * @return - the result of the plan, null if there is none, it is not done, it failed or it was cancelled.
+     */
+    private static <T> T planned(CompletableFuture<T> plan) {
+        if (plan == null)
+            return null;
+        plan.cancel(false);
+        return plan.isCompletedExceptionally() ? null : plan.getNow(null);
+    }
+
+    /**
+     * Keeps the cards of a planned layout that are still in the deck and fills up the rest with random cards of the
+     * deck; returns null if the result holds no set (while the deck could), so the layout is planned again.
+     */
+    private int[] repair(int[] planned, Deck deck, int n) {
+        int[] layout = Arrays.stream(planned).filter(deck::contains).limit(n).toArray();
+        if (layout.length == n)
+            return layout;
+        int[] rest = Arrays.stream(deck.toArray()).filter(card -> indexOf(layout, card) < 0).toArray();
+        int kept = layout.length;
+        int[] repaired = Arrays.copyOf(layout, n);
+        System.arraycopy(pick(rest, 0, n - kept, random), 0, repaired, kept, n - kept);
+        return index(repaired, false).count() > 0 || n == deck.size() ? repaired : null;
+    }
+
+    private int[] take(int[] planned, int[] kept, Deck deck, int n) {
+        n = Math.min(n, deck.size());
+        if (planned == null || planned.length != n || !deck.containsAll(planned))
+            planned = choose(kept, deck.toArray(), n, random);
+        deck.take(planned);
+        return planned;
+    }
+
+    /**
+     * Chooses n cards of a pool so that together with the kept cards they hold a set, if they can: a few random
+     * choices first, then a choice around a random set that needs no more than n cards of the pool, among the sets of
+     * the kept cards and a random sample of the pool (see SET_CANDIDATES).
+     *
+     * @param kept   - the cards that stay on the table.
+     * @param pool   - the cards to choose from.
+     * @param n      - the number of cards to choose, at most pool.length.
+     * @param random - the source of randomness.
+     * @return - the chosen cards.
+     */
+    private int[] choose(int[] kept, int[] pool, int n, Random random) {
+        pool = pool.clone();
+        if (n == 0 || n >= pool.length)
+            return Arrays.copyOf(pool, n);
+        int[] layout = Arrays.copyOf(kept, kept.length + n);
+        for (int attempt = 0; attempt < RANDOM_TRIES; attempt++) {
+            int[] chosen = pick(pool, 0, n, random);
+            System.arraycopy(chosen, 0, layout, kept.length, n);
+            if (index(layout, false).count() > 0)
+                return chosen;
+        }
+
+        SetIndex inPlay = index(kept, true);
+        for (int card : pick(pool, 0, Math.min(pool.length, SET_CANDIDATES), random))
+            inPlay.add(card);
+        List<int[]> sets = inPlay.sets();
+        Collections.shuffle(sets, random);
+        for (int[] set : sets) {
+            int fromPool = 0;
+            for (int card : set) { // move the set's cards in the pool to its front
+                int position = indexOf(pool, card);
+                if (position >= 0)
+                    swap(pool, position, fromPool++);
+            }
+            if (fromPool <= n)
+                return pick(pool, fromPool, n, random);
+        }
+        return pick(pool, 0, n, random); // no set can be formed: the round will be a dead one
+    }
+
+    /**
+     * Moves random cards of the pool to positions from to n - 1 (a partial Fisher-Yates shuffle) and returns pool[0..n).
+     */
+    private static int[] pick(int[] pool, int from, int n, Random random) {
+        for (int i = from; i < n; i++)
+            swap(pool, i, i + random.nextInt(pool.length - i));
+        return Arrays.copyOf(pool, n);
+    }
+
+    private SetIndex index(int[] cards, boolean keepSets) {
+        SetIndex index = new SetIndex(env.util, env.config, keepSets);
+        for (int card : cards)
+            index.add(card);
+        return index;
+    }
+
+    private static int[] without(int[] cards, int[] removed) {
+        return Arrays.stream(cards).filter(card -> indexOf(removed, card) < 0).toArray();
+    }
+
+    private static int indexOf(int[] cards, int card) {
+        for (int i = 0; i < cards.length; i++)
+            if (cards[i] == card)
+                return i;
+        return -1;
+    }
+
+    private static void swap(int[] cards, int i, int j) {
+        int card = cards[i];
+        cards[i] = cards[j];
+        cards[j] = card;
+    }
+
+    /**
+     * @return - a key identifying a set of cards (sorts the array).
+     */
+    private long key(int[] set) {
+        Arrays.sort(set);
+        long key = 0;
+        for (int card : set)
+            key = key * env.config.deckSize + card;
+        return key;
+    }
+}
@@ -9,13 +9,15 @@ import java.util.Queue;
 import java.util.Random;
 import java.util.Vector;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 import javax.sql.rowset.spi.SyncFactory;
 
 import bguspl.set.Env;
+import bguspl.set.PlayerExecutor;
+import bguspl.set.Seeds;
+import bguspl.set.ThreadPlayerExecutor;
 
 /**
  * This class manages the players' threads and data
@@ -41,14 +43,19 @@ public class Player implements Runnable {
     public final int id;
 
     /**
-     * The thread representing the current player.
+     * The worker running the loop of the player (see PlayerExecutor).
      */
-    private Thread playerThread;
+    private volatile PlayerExecutor.Worker worker;
 
     /**
-     * The thread of the AI (computer) player (an additional thread used to generate key presses).
+     * The worker running the loop of the AI (computer) player (an additional loop used to generate key presses).
      */
-    private Thread aiThread;
+    private volatile PlayerExecutor.Worker aiWorker;
+
+    /**
+     * The source of the AI's key presses.
+     */
+    private final Random random;
 
     /**
      * True iff the player is human (not a computer player).
@@ -65,19 +72,14 @@ public class Player implements Runnable {
      */
     private int score;
 
-    /**
-     * queue of slots of the placed tokens
-     */
-    public List <Integer> tokensQueue;
-
       /**
      * one seconde in miliseconde.
      */
     private final long SECONDE=1000;
-     /**
-     * 0.6 seconde in miliseconde.
+    /**
+     * one miliseconde in nanoseconde.
      */
-    private final long SECONDE_0_6=600;
+    private final long MILLI=1000000;
     /*
      * the dealer object
      */
@@ -85,24 +87,19 @@ public class Player implements Runnable {
     /*
      * true iff the player can insert tokens to his queue
      */
-     public boolean canInsert;
+     public volatile boolean canInsert;
 
      /*
      * true iff the player can remove tokens after his set got checked
      */
-    public boolean RemoveAfterPenalty;
-
-    /*
-     * thread of the current player
-     */
-    public Thread playerTread;
+    public volatile boolean RemoveAfterPenalty;
 
     /**
      * state of penalty/score : 0- regular (didn't have 3 tokens)
      *                          1- gets penalty
      *                          2- gets point
      */
-    public int state;
+    public volatile int state;
      /**
      *   state 0 -regular (didn't have 3 tokens)
      */
@@ -117,13 +114,28 @@ public class Player implements Runnable {
     private final int STATE_2 = 2;
 
     /**
-     *   The size which can be send to check if there is a set.
+     * the phase of the player's loop: collecting tokens, waiting for the dealer to check its set or frozen.
      */
-    private final int SETSIZE = 3;
+    private int phase;
+    private final int PHASE_READY = 0;
+    private final int PHASE_CLAIMED = 1;
+    private final int PHASE_FROZEN = 2;
+
     /**
-     * atomicInteger of the size of the token queue.
+     * true iff the dealer handled the player's claim (or released the player) since it was submitted.
      */
-    private AtomicInteger AtomicList;
+    private volatile boolean checked;
+
+    /**
+     * The time (env.clock.nanoTime) when the player's freeze ends, and the state that froze him (point or penalty).
+     */
+    private long freezeUntil;
+    private int frozenState;
+
+    /**
+     *   The size which can be send to check if there is a set.
+     */
+    private final int SETSIZE = 3;
     
     /**
      * The class constructor.
@@ -140,50 +152,132 @@ public class Player implements Runnable {
         this.table = table;
         this.id = id;
         this.human = human;
-        tokensQueue=new LinkedList<Integer>();
         state=STATE_0;
-        playerThread=Thread.currentThread();
+        phase=PHASE_READY;
+        random=env.seeds.random(Seeds.PLAYER, id);
         canInsert=true;
         RemoveAfterPenalty=false; 
-        AtomicList= new AtomicInteger();
     }
 
     /**
-     * The main player thread of each player starts here (main loop for the player thread).
+     * Starts the loop of the player (and of its AI, for a computer player) on the game's player executor.
+     */
+    public void start() {
+        env.logger.log(Level.INFO, "Player " + id + " starting.");
+        worker = env.playerExecutor.start(this::step, "player" + id);
+        if (!human) createArtificialIntelligence();
+    }
+
+    /**
+     * The main player thread: runs the player's loop (and starts its AI, for a computer player) on the current
+     * thread, parking it through the game's clock between the steps like the thread executor does. start() runs the
+     * same loop on the game's player executor instead.
      */
     @Override
     public void run() {
-        playerThread=Thread.currentThread();
-        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + "starting.");
+        Thread current = Thread.currentThread();
+        env.logger.log(Level.INFO, "Thread " + current.getName() + " starting.");
+        env.clock.register();
+        worker = () -> env.clock.unpark(current);
         if (!human) createArtificialIntelligence();
-        while (!terminate) {
-            if(tokensQueue.size()==SETSIZE && RemoveAfterPenalty==false && state==STATE_0){
-                    canInsert=false;                    
-                    dealer.insertCheckSetQueue(id); // insert the player to check queue line
-                    try {
-                        synchronized (this) { wait(); }
-                    } catch (InterruptedException ignored) {}
-                    if(state==STATE_1){
-                        penalty();
-                    }
-                    else if(state==STATE_2){
-                        point();
-                    }
-                    if (!human) 
-                        aiThread.interrupt();
+        ThreadPlayerExecutor.runLoop(this::step, env.clock, this);
+    }
+
+    /**
+     * One step of the player's loop: claims a set once the player has SETSIZE tokens, then handles the dealer's
+     * answer and the freeze that follows it. Never blocks; waits for a wakeup (or for the freeze to pass) instead.
+     *
+     * @return - the time to wait before the next step (see PlayerExecutor.Loop).
+     */
+    private long step() {
+        if (terminate) {
+            env.logger.log(Level.INFO, "Player " + id + " terminated.");
+            return PlayerExecutor.DONE;
+        }
+        if (phase == PHASE_CLAIMED) {
+            if (!checked)
+                return PlayerExecutor.IDLE; // the dealer wakes the player up when it is done with the claim
+            if (state == STATE_1)
+                penalty();
+            else if (state == STATE_2)
+                point();
+            else
+                phase = PHASE_READY; // released without a verdict
+            wakeupAi();
+        }
+        if (phase == PHASE_FROZEN) {
+            long left = freezeUntil - env.clock.nanoTime();
+            if (left > 0) {
+                long seconds = (left + SECONDE * MILLI - 1) / (SECONDE * MILLI);
+                env.ui.setFreeze(id, seconds * SECONDE);
+                return left - (seconds - 1) * SECONDE * MILLI; // until the displayed second changes
             }
-            state=STATE_0;
+            env.ui.setFreeze(id, 0);
+            if (frozenState == STATE_2)
+                removeAllTokensFromQueue();
+            else
+                RemoveAfterPenalty = true;
+            canInsert = true;
+            state = STATE_0;
+            phase = PHASE_READY;
+            wakeupAi();
+        }
+        if (table.countTokens(id) == SETSIZE && !RemoveAfterPenalty) {
+            canInsert = false;
+            state = STATE_0;
+            checked = false;
+            phase = PHASE_CLAIMED;
+            dealer.insertCheckSetQueue(createClaim()); // insert the player to check queue line
         }
-        if (!human) try { aiThread.join(); } catch (InterruptedException ignored) {}
-        env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
+        return PlayerExecutor.IDLE; // key presses wake the player up when it has SETSIZE tokens
     }
 
+    /**
+     * Wakes the player up after the dealer checked its claim or changed its tokens.
+     */
+    public void wakeup() {
+        checked = true;
+        PlayerExecutor.Worker current = worker;
+        if (current != null) current.wakeup();
+    }
+
+    /**
+     * Wakes the AI of a computer player up, to press keys if the player can insert tokens.
+     */
+    public void wakeupAi() {
+        PlayerExecutor.Worker current = aiWorker;
+        if (current != null) current.wakeup();
+    }
+
+
+    /**
+     * @return a claim of the slots of the player's tokens and the cards currently in them.
+     */
+    private Claim createClaim(){
+        int[] tokens=table.tokenSlots(id);
+        int[] slots=Arrays.copyOf(tokens, SETSIZE);
+        int[] cards=new int[SETSIZE];
+        long[] versions=new long[SETSIZE];
+        table.readSlots(slots, cards, versions); // an empty slot (card -1) makes the claim stale
+        boolean legal=true;
+        for(int i=0 ; i<SETSIZE ; i++){
+            if(i>=tokens.length)
+                cards[i]=-1; // a missing token makes the claim stale too
+            if(cards[i]==-1)
+                legal=false;
+        }
+        legal=legal && env.util.testSet(cards); // tested here, on the player's thread, rather than by the dealer
+        return new Claim(id, slots, cards, versions, legal, env.clock.nanoTime());
+    }
 
     /*
-     * return token queue player
+     * return the slots of the player's tokens (a copy, the table holds the tokens)
      */
     public List <Integer> getTokenQueue(){
-        return tokensQueue;
+        List<Integer> tokens=new LinkedList<Integer>();
+        for(int slot : table.tokenSlots(id))
+            tokens.add(slot);
+        return tokens;
     }
 
     /*
@@ -197,41 +291,35 @@ public class Player implements Runnable {
     }
 
     /**
-     * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * Creates an additional loop for an AI (computer) player. Every step of this loop generates random key presses
+     * until the player holds SETSIZE tokens, then waits until the player can insert tokens again.
      */
     private void createArtificialIntelligence() {
-       aiThread = new Thread(() -> {
-            env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
-            while (!terminate) {
-                List<Integer> givenSlots=Arrays.asList(0,1,2,3,4,5,6,7,8,9,10,11);
-                Random random=new Random();
-                int token;
-                while(canInsert && tokensQueue.size()<=SETSIZE){
-                    token=random.nextInt(givenSlots.size());//ganerate random number
-                    try {
-                        Thread.sleep(0);
-                    } catch (InterruptedException e) {}
-
-                    keyPressed(token);
-                }
-                try {
-                    synchronized (this) { wait(); }
-                } catch (InterruptedException ignored) {}
+        aiWorker = env.playerExecutor.start(() -> {
+            if (terminate)
+                return PlayerExecutor.DONE;
+            for (int presses = 0; presses < env.config.tableSize; presses++) {
+                if (!canInsert || table.countTokens(id) == SETSIZE && !RemoveAfterPenalty || table.isDealerWorking())
+                    return PlayerExecutor.IDLE; // woken up when this changes, rather than blocking on the table
+                int slot = table.randomSlot(random, true); // ganerate random slot, only among the slots with a card
+                if (slot == -1)
+                    break;
+                if (!table.isSlotChanging(slot)) // rather than waiting for the dealer, press another key
+                    keyPressed(slot);
             }
-            env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
+            return MILLI; // e.g. an empty table: wait a millisecond (on the game's clock, so a VirtualClock can move on)
         }, "computer-" + id);
-        aiThread.start();
     }
 
 
     /**
-     * @post - player's thread is awake and his field of terminate=true
+     * @post - player's loops are awake and his field of terminate=true
      * Called when the game should be terminated due to an external event.
      */
     public void terminate() {
-        Thread.currentThread().interrupt();
         terminate=true;
+        wakeup();
+        wakeupAi();
     }
 
     /**
@@ -246,63 +334,32 @@ public class Player implements Runnable {
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        if(table.slotToCard[slot]!=null){
+        if(table.cardAt(slot)!=-1){
             if(canInsert){
-                int slotIndex=-1;
-                for(int i=0 ; i<tokensQueue.size() ; i++) //checks if the token exist in the queue 
-                    if(tokensQueue.size()>0 ){
-                        if(tokensQueue.get(i)==slot){
-                        slotIndex=i;
-                    }
+                if(table.hasToken(id, slot)){ // the table holds the tokens, the check needs no scan
+                    table.removeToken(id, slot);
+                    if(RemoveAfterPenalty)
+                        RemoveAfterPenalty=false;
+                }
+                else if(table.countTokens(id)<SETSIZE){
+                    if(table.placeToken(id, slot) && table.countTokens(id)==SETSIZE && worker!=null)
+                        worker.wakeup(); // the player can claim a set
                 }
-                
-               if(slotIndex!=-1 && !tokensQueue.isEmpty()){
-                int listSize;
-                int listsizechanged;
-                do{
-                    listSize=tokensQueue.size();
-                       table.removeToken(id, slot);
-                       if(tokensQueue.size()>0)
-                            tokensQueue.remove(slotIndex); //remove from the players queue
-                       if(RemoveAfterPenalty)
-                           RemoveAfterPenalty=false;
-                    listsizechanged=tokensQueue.size();
-
-                } while(AtomicList.compareAndSet(listSize, listsizechanged));
-                
-               }
-               else if(slotIndex==-1 && canInsert && tokensQueue.size()<SETSIZE){
-                  table.placeToken(id, slot);
-                  tokensQueue.add(slot);    
-               }
-          }
-      }   
+            }
+        }
     }
 
     /**
      * Award a point to a player and perform other related actions.
      * @post - the player's score is increased by 1.
      * @post - the player's score is updated in the ui.
+     * @post - the player is frozen for pointFreezeMillis time, then his tokens are removed
      */
     public void point() {
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
         score++;
-        
-        long sleepTime=env.config.pointFreezeMillis+System.currentTimeMillis();
-        if(sleepTime-System.currentTimeMillis()==0){
-            env.ui.setScore(id,score);
-        }
-        while(sleepTime-System.currentTimeMillis()>0){
-            try {
-                env.ui.setFreeze(id, sleepTime-System.currentTimeMillis()+SECONDE_0_6);
-               Thread.sleep(SECONDE);
-                env.ui.setScore(id,score);
-                Thread.currentThread().interrupt();
-                env.ui.setFreeze(id, 0);
-            } catch (InterruptedException e) {}
-        }
-        removeAllTokensFromQueue();
-        canInsert=true;
+        env.ui.setScore(id,score);
+        freeze(env.config.pointFreezeMillis, STATE_2);
     }
 
     /**
@@ -311,21 +368,18 @@ public class Player implements Runnable {
      * Penalize a player and perform other related actions.
      */
     public void penalty() {
-        int loops=(int) env.config.penaltyFreezeMillis/(int)SECONDE;
-        for(int i=0 ; i<loops ; i++){
-            try{
-                
-                env.ui.setFreeze(id,(loops-i)*SECONDE );
-                Thread.sleep(SECONDE);
-                if(i+1==loops){
-                    Thread.currentThread().interrupt();
-                    env.ui.setFreeze(id,(loops-i)*SECONDE-SECONDE );
-                }
-            }
-            catch (InterruptedException e) {}
-        }
-        canInsert=true;
-         RemoveAfterPenalty=true;
+        freeze(env.config.penaltyFreezeMillis, STATE_1);
+    }
+
+    /**
+     * Freezes the player: the next steps of its loop only update the freeze display until the time passes.
+     * @param millis - the freeze time in miliseconde.
+     * @param cause  - STATE_2 for a point, STATE_1 for a penalty.
+     */
+    private void freeze(long millis, int cause) {
+        freezeUntil=env.clock.nanoTime()+millis*MILLI;
+        frozenState=cause;
+        phase=PHASE_FROZEN;
     }
 
      /** 
@@ -335,13 +389,6 @@ public class Player implements Runnable {
         return score;
     }
     
-     /** 
-     * return playerAiThread.
-     */
-    public Thread getAiThread(){
-        return aiThread;
-    }
-
     /** 
      * return is player human.
      */
@@ -350,30 +397,20 @@ public class Player implements Runnable {
     }
 
     /** 
-     * remove all the tokens from the player queue when the dealer clear the table.
+     * remove all the tokens of the player from the table.
      */
     public void removeAllTokensFromQueue() {
-        tokensQueue.clear();
+        table.removeTokens(id);
     }
 
     /**
-     * remove the tokens from the player queue
-     * returns true iff we removed some tokens
+     * called after the dealer removed some of the player's tokens from the table:
+     * withdraws the player's claim and lets it place tokens again
      */
-    public boolean removeTokensFromQueue(List <Integer> slots) {
-        boolean removed=false;
-        for(int i=0 ; i<slots.size() ; i++){
-            if(tokensQueue.size()>0 && tokensQueue.contains(slots.get(i))){
-                if(dealer.CheckSetRequestQueue.contains(id)){
-                    dealer.CheckSetRequestQueue.remove(id);
-                }
-                tokensQueue.remove(slots.get(i));
-                removed=true;
-            }
-        }
-      
-        if (!human) 
-            aiThread.interrupt();
-        return removed;
+    public void tokensRemoved() {
+        dealer.cancelCheckSet(id);
+        canInsert=true;
+        wakeup();
+        wakeupAi();
     }
 }
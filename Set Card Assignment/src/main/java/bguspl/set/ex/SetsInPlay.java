@@ -0,0 +1,83 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.SetIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tells whether a set can still be collected: a set formed by the cards still in the game (in the deck or on the
+ * table). Moving cards between the deck and the table does not change it, only cards leaving the game do.
+ * With 3-card sets the sets are kept in a count-only SetIndex, where a card leaving costs one pair completion pass.
+ * With larger sets the index would test every combination of the other cards on each removal, so instead the cards
+ * are kept in a list and searched for one set (stopping at the first) whenever cards leave.
+ * This class is not thread safe.
+ */
+class SetsInPlay {
+
+    /**
+     * The number of cards in a set for which the sets are indexed.
+     */
+    private static final int INDEXED_SET_SIZE = 3;
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The sets formed by the cards in play (null unless sets have INDEXED_SET_SIZE cards).
+     */
+    private final SetIndex sets;
+
+    /**
+     * The cards in play and whether they form a set (only when the sets are not indexed).
+     */
+    private final List<Integer> cards;
+    private boolean setLeft;
+
+    /**
+     * Starts with all the cards of the game in play.
+     * @param env - the game environment object.
+     */
+    SetsInPlay(Env env) {
+        this.env = env;
+        if (env.config.featureSize == INDEXED_SET_SIZE) {
+            sets = new SetIndex(env.util, env.config, false);
+            for (int card = 0; card < env.config.deckSize; card++)
+                sets.add(card);
+            cards = null;
+        } else {
+            sets = null;
+            cards = new ArrayList<>(env.config.deckSize);
+            for (int card = 0; card < env.config.deckSize; card++)
+                cards.add(card);
+            setLeft = !env.util.findSets(cards, 1).isEmpty();
+        }
+    }
+
+    /**
+     * Takes cards out of the game.
+     * @param removed - the card ids (-1 entries are skipped).
+     */
+    void remove(int[] removed) {
+        for (int card : removed) {
+            if (card == -1)
+                continue;
+            if (sets != null)
+                sets.remove(card);
+            else
+                cards.remove(Integer.valueOf(card));
+        }
+        if (sets == null)
+            setLeft = !env.util.findSets(cards, 1).isEmpty();
+    }
+
+    /**
+     * @return - true iff the cards still in the game form at least one set.
+     */
+    boolean any() {
+        return sets != null ? sets.count() != 0 : setLeft;
+    }
+}
@@ -1,15 +1,29 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.SetIndex;
 
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
  * This class contains the data that is visible to the player.
+ * The table is locked per slot: a token operation locks its slot only, so players touching different slots do not
+ * contend, and a card operation locks the slots it changes (in slot order). The sets on the table are guarded by
+ * the monitor of setsOnTable.
+ * Readers that do not lock read the cards through a seqlock (see snapshot and readSlots): a card operation writes its
+ * slots inside an odd sequence number, so a reader never sees a layout half way through a change.
  *
  * @inv slotToCard[x] == y iff cardToSlot[y] == x
  */
@@ -31,9 +45,113 @@ public class Table {
     protected final Integer[] cardToSlot; // slot per card (if any)
 
     /**
-     * true iff the dealre is working on the table 
+     * The card in every slot (-1 if none): the copy of slotToCard that is read without locking, under the sequence.
      */
-    public boolean flagIsdealerWorking;
+    private final AtomicIntegerArray layout;
+
+    /**
+     * The sequence number of the layout (a seqlock): odd while a card operation writes the layout, even otherwise,
+     * and it grows with every change. A reader that saw the same even number before and after reading the layout
+     * read a consistent one.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The occupied slots (a bit per slot, the free slots are the clear bits) and their number, written with the
+     * layout: counting the cards costs nothing, and the slots are listed and picked 64 at a time.
+     */
+    private final AtomicLongArray occupied;
+    private volatile int cardCount;
+
+    /**
+     * Serializes the writers of the layout (card operations on different slots may run together).
+     */
+    private final ReentrantLock layoutWriter = new ReentrantLock();
+
+    /**
+     * The latest snapshot taken, handed out again until the layout changes.
+     */
+    private volatile TableSnapshot lastSnapshot;
+
+    /**
+     * The sets on the table for the hints, taken from setsOnTable per snapshot of the table.
+     */
+    private final HintEngine hintEngine;
+
+    /**
+     * The sets formed by the cards currently on the table.
+     */
+    private final SetIndex setsOnTable;
+
+    /**
+     * The version of every slot: it changes (after the card is written) whenever the card in the slot changes, so a
+     * reader of a slot can tell that the card it read is still the one there.
+     */
+    private final AtomicLongArray slotVersions;
+
+    /**
+     * The tokens on the table, the authority on which player holds a token where: the players holding a token on
+     * every slot (playerWords bits per slot) and the slots of every player's tokens (slotWords bits per player).
+     * Both are changed under the slot's lock and read without locking.
+     */
+    private final AtomicLongArray slotTokens;
+    private final AtomicLongArray playerTokens;
+    private final int playerWords;
+    private final int slotWords;
+
+    /**
+     * The lock of every slot, guarding the card in the slot and the tokens on it.
+     */
+    private final ReentrantLock[] slotLocks;
+
+    /**
+     * All the slots, in order.
+     */
+    private final int[] allSlots;
+
+    /**
+     * true iff the dealre is working on the table (changing the whole layout)
+     */
+    private volatile boolean flagIsdealerWorking;
+
+    /**
+     * The number of changes the dealer is making to every slot (see beginSlotsChange).
+     */
+    private final AtomicIntegerArray slotChanges;
+
+    /**
+     * The threads waiting for the dealer to finish changing a slot. They park through the game's clock (unlike
+     * a monitor), so a virtual thread releases its carrier, a VirtualClock sees them wait, and the wait is a managed
+     * block on a pool thread.
+     */
+    private final Queue<Thread> dealerWaiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Blocks the current thread while the dealer changes a slot.
+     */
+    private class SlotBlocker implements ForkJoinPool.ManagedBlocker {
+
+        private final int slot;
+
+        SlotBlocker(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean block() {
+            Thread current = Thread.currentThread();
+            dealerWaiters.add(current);
+            while (isSlotChanging(slot))
+                env.clock.parkUntil(Table.this, Long.MAX_VALUE);
+            dealerWaiters.remove(current);
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return !isSlotChanging(slot);
+        }
+    }
 
     /**
      * Constructor for testing.
@@ -45,7 +163,33 @@ public class Table {
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
+        slotVersions = new AtomicLongArray(slotToCard.length);
+        layout = new AtomicIntegerArray(slotToCard.length);
+        slotWords = (slotToCard.length + 63) / 64;
+        occupied = new AtomicLongArray(slotWords);
+        for (int slot = 0; slot < slotToCard.length; slot++) {
+            layout.set(slot, slotToCard[slot] != null ? slotToCard[slot] : -1);
+            if (slotToCard[slot] != null) {
+                occupied.set(slot / 64, occupied.get(slot / 64) | 1L << slot);
+                cardCount++;
+            }
+        }
+        slotChanges = new AtomicIntegerArray(slotToCard.length);
+        playerWords = (env.config.players + 63) / 64;
+        slotTokens = new AtomicLongArray(slotToCard.length * playerWords);
+        playerTokens = new AtomicLongArray(env.config.players * slotWords);
+        slotLocks = new ReentrantLock[slotToCard.length];
+        allSlots = new int[slotToCard.length];
+        for (int slot = 0; slot < slotLocks.length; slot++) {
+            slotLocks[slot] = new ReentrantLock();
+            allSlots[slot] = slot;
+        }
         flagIsdealerWorking=true;
+        setsOnTable = new SetIndex(env.util, env.config, true);
+        hintEngine = new HintEngine(env, this);
+        for (Integer card : slotToCard)
+            if (card != null)
+                setsOnTable.add(card);
     }
 
     /**
@@ -61,13 +205,34 @@ public class Table {
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        printHints(hintEngine.current());
+    }
+
+    /**
+     * Prints the sets on the table like hints, unless they were already printed by this method for the same layout:
+     * cheap enough to call on every tick of the countdown.
+     */
+    public void hintsIfChanged() {
+        HintEngine.Hints hints = hintEngine.takeUnprinted();
+        if (hints != null)
+            printHints(hints);
+    }
+
+    /**
+     * @return - all the legal sets of cards that are currently on the table, every one the sorted slots of its cards
+     * (cached until the cards on the table change).
+     */
+    public List<int[]> hintSets() {
+        return hintEngine.current().sets.stream().map(int[]::clone).collect(Collectors.toList());
+    }
+
+    private void printHints(HintEngine.Hints hints) {
+        for (int[] set : hints.sets) {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
-            int[][] features = env.util.cardsToFeatures(set);
-            System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
-        });
+            int[] cards = Arrays.stream(set).map(hints.snapshot::card).toArray();
+            int[][] features = env.util.cardsToFeatures(cards);
+            System.out.println(sb.append("slots: ").append(Arrays.toString(set)).append(" features: ").append(Arrays.deepToString(features)));
+        }
     }
 
     /**
@@ -75,11 +240,14 @@ public class Table {
      * @return - the number of cards on the table.
      */
     public int countCards() {
-        int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
-                ++cards;
-        return cards;
+        return cardCount;
+    }
+
+    /**
+     * @return - the number of empty slots on the table.
+     */
+    public int countFreeSlots() {
+        return slotToCard.length - cardCount;
     }
 
     /**
@@ -87,13 +255,193 @@ public class Table {
      * creat list of the slots that have card 
      */
     public List<Integer> slotsOnTable(){
-        List <Integer> slotsOnTable=new LinkedList<>();
-        for (Integer slot : cardToSlot)
-            if (slot != null)
-                slotsOnTable.add(slot);
+        int[] slots = occupiedSlots();
+        List <Integer> slotsOnTable=new ArrayList<>(slots.length);
+        for (int slot : slots)
+            slotsOnTable.add(slot);
         return slotsOnTable;
     }
 
+    /**
+     * @return - the slots that hold a card, in slot order (read without locking, at one sequence number).
+     */
+    public int[] occupiedSlots() {
+        return slotsWhere(true);
+    }
+
+    /**
+     * @return - the empty slots, in slot order (read without locking, at one sequence number).
+     */
+    public int[] freeSlots() {
+        return slotsWhere(false);
+    }
+
+    /**
+     * Picks a random slot among the occupied or the free ones, without locking and without retrying on the others.
+     * The random is drawn from at most once: if the layout changed while reading, the same draw selects again among
+     * the slots read next, so a player's choices depend only on its seed and the layouts it sees.
+     * @param random   - the source of randomness.
+     * @param occupied - true to pick a slot that holds a card, false to pick an empty one.
+     * @return - the slot, -1 if there is none.
+     */
+    public int randomSlot(Random random, boolean occupied) {
+        int k = -1;
+        while (true) {
+            long before = stableSequence();
+            int count = occupied ? cardCount : slotToCard.length - cardCount;
+            if (count > 0 && k == -1)
+                k = random.nextInt(count);
+            int slot = count > 0 ? selectSlot(k % count, occupied) : -1;
+            if (sequence.get() == before)
+                return slot;
+        }
+    }
+
+    private int[] slotsWhere(boolean occupied) {
+        while (true) {
+            long before = stableSequence();
+            int[] slots = new int[occupied ? cardCount : slotToCard.length - cardCount];
+            int count = 0;
+            for (int word = 0; word < slotWords; word++)
+                for (long bits = slotBits(word, occupied); bits != 0 && count < slots.length; bits &= bits - 1)
+                    slots[count++] = word * 64 + Long.numberOfTrailingZeros(bits);
+            if (sequence.get() == before)
+                return slots;
+        }
+    }
+
+    /**
+     * @return - the k-th occupied or free slot (counting from 0), skipping whole words by their bit counts.
+     */
+    private int selectSlot(int k, boolean occupied) {
+        for (int word = 0; word < slotWords; word++) {
+            long bits = slotBits(word, occupied);
+            int inWord = Long.bitCount(bits);
+            if (k >= inWord) {
+                k -= inWord;
+                continue;
+            }
+            for (; k > 0; k--)
+                bits &= bits - 1;
+            return word * 64 + Long.numberOfTrailingZeros(bits);
+        }
+        return -1; // read while the layout changed, the caller reads again
+    }
+
+    /**
+     * @return - a word of the occupied slots, or of the free slots (the clear bits that stand for slots).
+     */
+    private long slotBits(int word, boolean occupied) {
+        long bits = this.occupied.get(word);
+        if (occupied)
+            return bits;
+        int slotsInWord = slotToCard.length - word * 64;
+        return slotsInWord >= 64 ? ~bits : ~bits & (1L << slotsInWord) - 1;
+    }
+
+    /**
+     * Takes a consistent view of the cards on the table without locking: the layout is read between two equal even
+     * sequence numbers. Nothing is copied if the layout did not change since the last snapshot.
+     * @return - the snapshot.
+     */
+    public TableSnapshot snapshot() {
+        while (true) {
+            long before = stableSequence();
+            TableSnapshot last = lastSnapshot;
+            if (last != null && last.sequence == before)
+                return last;
+            int[] cards = new int[layout.length()];
+            for (int slot = 0; slot < cards.length; slot++)
+                cards[slot] = layout.get(slot);
+            if (sequence.get() == before) {
+                TableSnapshot snapshot = new TableSnapshot(before, cards);
+                lastSnapshot = snapshot;
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * @param slot - the slot.
+     * @return - the card in the slot, -1 if the slot is empty (read without locking).
+     */
+    public int cardAt(int slot) {
+        return layout.get(slot);
+    }
+
+    /**
+     * @param slot - the slot.
+     * @return - the current version of the slot.
+     */
+    public long slotVersion(int slot) {
+        return slotVersions.get(slot);
+    }
+
+    /**
+     * Reads the cards in some slots without locking the table, every card together with the version of its slot, all
+     * of them at the same sequence number (see snapshot).
+     * @param slots    - the slots.
+     * @param cards    - receives the card in every slot (-1 if the slot is empty).
+     * @param versions - receives the version of every slot.
+     */
+    public void readSlots(int[] slots, int[] cards, long[] versions) {
+        long before;
+        do {
+            before = stableSequence();
+            for (int i = 0; i < slots.length; i++) {
+                cards[i] = layout.get(slots[i]);
+                versions[i] = slotVersions.get(slots[i]);
+            }
+        } while (sequence.get() != before);
+    }
+
+    /**
+     * @return - the sequence number once no card operation is writing the layout.
+     */
+    private long stableSequence() {
+        long current;
+        while (((current = sequence.get()) & 1) != 0)
+            Thread.yield(); // a writer only writes a few array cells, it is done soon
+        return current;
+    }
+
+    /**
+     * Starts writing the layout (under the locks of the slots written): makes the sequence number odd.
+     * The caller ends the write in a finally block: a sequence number left odd would make every reader spin forever.
+     */
+    private void beginLayoutWrite() {
+        layoutWriter.lock();
+        sequence.incrementAndGet();
+    }
+
+    /**
+     * Ends writing the layout: makes the sequence number even again.
+     */
+    private void endLayoutWrite() {
+        sequence.incrementAndGet();
+        layoutWriter.unlock();
+    }
+
+    /**
+     * Writes the card in a slot to the layout and its mappings (between beginLayoutWrite and endLayoutWrite).
+     * @param slot - the slot.
+     * @param card - the card placed in the slot, null to empty it.
+     */
+    private void writeSlot(int slot, Integer card) {
+        Integer old = slotToCard[slot];
+        if (old != null)
+            cardToSlot[old] = null;
+        if (card != null)
+            cardToSlot[card] = slot;
+        slotToCard[slot] = card;
+        layout.set(slot, card != null ? card : -1);
+        if ((old != null) != (card != null)) { // under the writer lock, a plain read and write of the word will do
+            occupied.set(slot / 64, occupied.get(slot / 64) ^ 1L << slot);
+            cardCount += card != null ? 1 : -1;
+        }
+        slotVersions.incrementAndGet(slot);
+    }
+
     /**
      * Places a card on the table in a grid slot.
      * @param card - the card id to place in the slot.
@@ -101,14 +449,21 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        synchronized(this){
+        pace();
+        slotLocks[slot].lock();
         try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
-        env.ui.placeCard(card, slot);
-        this.notifyAll();
+            beginLayoutWrite();
+            try {
+                writeSlot(slot, card);
+            } finally {
+                endLayoutWrite();
+            }
+            synchronized (setsOnTable) {
+                setsOnTable.add(card);
+            }
+            env.ui.placeCard(card, slot);
+        } finally {
+            slotLocks[slot].unlock();
         }
     }
 
@@ -120,34 +475,150 @@ public class Table {
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot,int card) {
-        synchronized(this){
-        cardToSlot[card] = null;
-        slotToCard[slot] = null;
+        slotLocks[slot].lock();
         try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
-        
+            beginLayoutWrite();
+            try {
+                writeSlot(slot, null);
+            } finally {
+                endLayoutWrite();
+            }
+            synchronized (setsOnTable) {
+                setsOnTable.remove(card);
+            }
             env.ui.removeCard(slot);
-            this.notifyAll();
+        } finally {
+            slotLocks[slot].unlock();
+        }
+        pace();
+    }
 
+    /**
+     * @post - cards[i] is on the table, in slots[i]
+     * Places cards on the table as one transition: the table delay is paid once, before locking the slots, and the
+     * ui is updated once.
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which the cards should be placed, cards[i] in slots[i].
+     */
+    public void placeCards(int[] cards, int[] slots) {
+        if (cards.length == 0)
+            return;
+        pace();
+        lockSlots(slots);
+        try {
+            beginLayoutWrite();
+            try {
+                for (int i = 0; i < cards.length; i++)
+                    writeSlot(slots[i], cards[i]);
+            } finally {
+                endLayoutWrite();
+            }
+            synchronized (setsOnTable) {
+                for (int card : cards)
+                    setsOnTable.add(card);
+            }
+            env.ui.placeCards(cards, slots);
+        } finally {
+            unlockSlots(slots);
+        }
+    }
+
+    /**
+     * @post - the slots are empty
+     * Removes the cards in some slots as one transition (see placeCards).
+     * @param slots - the slots from which to remove the cards.
+     * @return - the card ids removed (-1 for a slot that was empty).
+     */
+    public int[] removeCards(int[] slots) {
+        int[] cards = new int[slots.length];
+        lockSlots(slots);
+        try {
+            beginLayoutWrite();
+            try {
+                for (int i = 0; i < slots.length; i++) {
+                    Integer card = slotToCard[slots[i]];
+                    cards[i] = card != null ? card : -1;
+                    if (card != null)
+                        writeSlot(slots[i], null);
+                }
+            } finally {
+                endLayoutWrite();
+            }
+            synchronized (setsOnTable) {
+                for (int card : cards)
+                    if (card != -1)
+                        setsOnTable.remove(card);
+            }
+            env.ui.removeCards(slots);
+        } finally {
+            unlockSlots(slots);
         }
+        pace();
+        return cards;
     }
 
     /**
-     * Places a player token on a grid slot.
+     * @post - there are no cards on the table
+     * Removes all the cards from the table as one transition (see placeCards).
+     * @return - the card ids removed.
+     */
+    public int[] clearTable() {
+        int[] cards;
+        lockSlots(allSlots);
+        try {
+            int[] slots = occupiedSlots(); // the slots are locked, the layout cannot change
+            if (slots.length == 0)
+                return new int[0];
+            cards = new int[slots.length];
+            beginLayoutWrite();
+            try {
+                for (int i = 0; i < slots.length; i++) {
+                    cards[i] = slotToCard[slots[i]];
+                    writeSlot(slots[i], null);
+                }
+            } finally {
+                endLayoutWrite();
+            }
+            synchronized (setsOnTable) {
+                for (int card : cards)
+                    setsOnTable.remove(card);
+            }
+            env.ui.removeCards(slots);
+        } finally {
+            unlockSlots(allSlots);
+        }
+        pace();
+        return cards;
+    }
+
+    /**
+     * Waits the table delay (one step of pacing per table transition), without holding the table's lock.
+     * An interrupt cuts the wait short and stays set, so the dealer still sees the interrupt of Dealer.terminate
+     * (and the delays of the transitions left are skipped).
+     */
+    private void pace() {
+        if (env.config.tableDelayMillis <= 0)
+            return;
+        env.clock.sleep(env.config.tableDelayMillis * 1000000L);
+    }
+
+    /**
+     * Places a player token on a grid slot, unless the slot is empty.
      * @param player - the player the token belongs to.
      * @param slot   - the slot on which to place the token.
+     * @return - true iff the token was placed.
      */
-    public void placeToken(int player, int slot) {
-        synchronized(this){
-            while(flagIsdealerWorking){
-                try {
-                    this.wait();
-                } catch (InterruptedException e) {} 
-                }
+    public boolean placeToken(int player, int slot) {
+        lockSteadySlot(slot);
+        try {
+            if (layout.get(slot) == -1)
+                return false;
+            setToken(player, slot, true);
             env.ui.placeToken(player, slot);
-            this.notifyAll();
-         }
+            return true;
+        } finally {
+            slotLocks[slot].unlock();
+        }
     }
 
     /**
@@ -156,25 +627,152 @@ public class Table {
      * @param slot   - the slot from which to remove the token.
      */
     public void removeToken(int player, int slot) {
-        synchronized(this){
-            while(flagIsdealerWorking){
-                try {
-                    this.wait();
-                } catch (InterruptedException e) {} 
-            }
+        lockSteadySlot(slot);
+        try {
+            setToken(player, slot, false);
             if(slotToCard[slot]!=null)
-                env.ui.removeToken(player, slot); 
-            this.notifyAll(); 
+                env.ui.removeToken(player, slot);
+        } finally {
+            slotLocks[slot].unlock();
         }
     }
+
+    /**
+     * @post - flagIsdealerWorking == working
+     * Marks the start or the end of the dealer's work on the table, waking up the players waiting for it to end.
+     * @param working - true iff the dealer starts working on the table.
+     */
+    public void setDealerWorking(boolean working) {
+        flagIsdealerWorking = working;
+        if (!working)
+            wakeDealerWaiters();
+    }
+
+    /**
+     * Marks the start of the dealer's change of some slots (e.g. collecting a set and replacing its cards): the
+     * players touching these slots wait until endSlotsChange, the others go on.
+     * @param slots - the slots the dealer changes.
+     */
+    public void beginSlotsChange(List<Integer> slots) {
+        for (int slot : slots)
+            slotChanges.incrementAndGet(slot);
+    }
+
+    /**
+     * Marks the end of a change started by beginSlotsChange, waking up the players waiting for it.
+     * @param slots - the slots the dealer changed.
+     */
+    public void endSlotsChange(List<Integer> slots) {
+        for (int slot : slots)
+            slotChanges.decrementAndGet(slot);
+        wakeDealerWaiters();
+    }
+
+    /**
+     * @param slot - the slot.
+     * @return - true iff the dealer is changing the slot (or the whole layout).
+     */
+    public boolean isSlotChanging(int slot) {
+        return flagIsdealerWorking || slotChanges.get(slot) > 0;
+    }
+
+    /**
+     * @return - the epoch of the layout, which grows whenever a card is placed on the table or removed from it.
+     */
+    public long epoch() {
+        return sequence.get() >>> 1; // a change in progress still counts as the epoch before it
+    }
+
+    private void wakeDealerWaiters() {
+        for (Thread waiter : dealerWaiters)
+            env.clock.unpark(waiter);
+    }
+
+    /**
+     * @return - true iff the dealer is working on the table (changing the whole layout).
+     */
+    public boolean isDealerWorking() {
+        return flagIsdealerWorking;
+    }
+
+    /**
+     * Waits until the dealer is not changing the slot.
+     */
+    private void awaitDealer(int slot) {
+        if (!isSlotChanging(slot))
+            return;
+        try {
+            ForkJoinPool.managedBlock(new SlotBlocker(slot));
+        } catch (InterruptedException ignored) {} // the blocker does not throw
+    }
+
+    /**
+     * Locks a slot once the dealer is not changing it. The check is made again under the lock: the dealer marks its
+     * change before it locks the slot to sweep the tokens, so a token placed under the lock either is swept by the
+     * dealer or is placed after the change ended, never on the new card while the change is going on.
+     */
+    private void lockSteadySlot(int slot) {
+        while (true) {
+            awaitDealer(slot);
+            slotLocks[slot].lock();
+            if (!isSlotChanging(slot))
+                return;
+            slotLocks[slot].unlock(); // the dealer started changing the slot after the wait: wait again
+        }
+    }
+
+    private void lockSlots(int[] slots) {
+        int[] sorted = slots.clone();
+        Arrays.sort(sorted); // always in slot order, so two card operations cannot deadlock
+        for (int slot : sorted)
+            slotLocks[slot].lock();
+    }
+
+    private void unlockSlots(int[] slots) {
+        for (int slot : slots)
+            slotLocks[slot].unlock();
+    }
     
     /**
-     * Removes all tokens of  a grid slot.
-     * @param slot   - the slot from which to remove the token.
+     * Removes all tokens of some grid slots (for the dealer: it does not wait for the slots' change to end).
+     * @param slots  - the slots from which to remove the tokens.
+     * @return - the ids of the players whose tokens were removed.
+     */
+    public int[] removeTokensFromSpecifieSlot( List<Integer>slots) {
+        BitSet holders = new BitSet();
+        for(int slot : slots){
+            slotLocks[slot].lock();
+            try {
+                for (int word = 0; word < playerWords; word++) {
+                    long players = slotTokens.getAndSet(slot * playerWords + word, 0);
+                    for (; players != 0; players &= players - 1) {
+                        int player = word * 64 + Long.numberOfTrailingZeros(players);
+                        playerTokens.accumulateAndGet(player * slotWords + slot / 64, ~(1L << slot), (a, b) -> a & b);
+                        holders.set(player);
+                    }
+                }
+                env.ui.removeTokens(slot);
+            } finally {
+                slotLocks[slot].unlock();
+            }
+        }
+        return holders.stream().toArray();
+    }
+
+    /**
+     * Removes all the tokens of a player (for the dealer and the player itself: it does not wait for the dealer).
+     * @param player - the player the tokens belong to.
      */
-    public void removeTokensFromSpecifieSlot( List<Integer>slots) {
-        for(int i=0; i<slots.size();i++){
-            env.ui.removeTokens(slots.get(i));
+    public void removeTokens(int player) {
+        for (int slot : tokenSlots(player)) {
+            slotLocks[slot].lock();
+            try {
+                setToken(player, slot, false);
+                if (slotToCard[slot] != null)
+                    env.ui.removeToken(player, slot);
+            } finally {
+                slotLocks[slot].unlock();
+            }
         }
     }
 
@@ -182,8 +780,63 @@ public class Table {
      * Removes all tokens from the desk.
      */
     public void removeAllToken() {
-        synchronized(this){
+        lockSlots(allSlots);
+        try {
+            for (int word = 0; word < slotTokens.length(); word++)
+                slotTokens.set(word, 0);
+            for (int word = 0; word < playerTokens.length(); word++)
+                playerTokens.set(word, 0);
             env.ui.removeTokens();
+        } finally {
+            unlockSlots(allSlots);
+        }
+    }
+
+    /**
+     * @param player - the player.
+     * @param slot   - the slot.
+     * @return - true iff the player holds a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return (playerTokens.get(player * slotWords + slot / 64) & 1L << slot) != 0;
+    }
+
+    /**
+     * @param player - the player.
+     * @return - the number of tokens the player holds.
+     */
+    public int countTokens(int player) {
+        int tokens = 0;
+        for (int word = 0; word < slotWords; word++)
+            tokens += Long.bitCount(playerTokens.get(player * slotWords + word));
+        return tokens;
+    }
+
+    /**
+     * @param player - the player.
+     * @return - the slots of the player's tokens, in slot order.
+     */
+    public int[] tokenSlots(int player) {
+        int[] slots = new int[countTokens(player)];
+        int count = 0;
+        for (int word = 0; word < slotWords; word++)
+            for (long bits = playerTokens.get(player * slotWords + word); bits != 0 && count < slots.length; bits &= bits - 1)
+                slots[count++] = word * 64 + Long.numberOfTrailingZeros(bits);
+        return count == slots.length ? slots : Arrays.copyOf(slots, count); // a token removed while reading
+    }
+
+    /**
+     * Sets or clears the token bits of a player on a slot (under the slot's lock).
+     */
+    private void setToken(int player, int slot, boolean on) {
+        int slotWord = slot * playerWords + player / 64;
+        int playerWord = player * slotWords + slot / 64;
+        if (on) {
+            slotTokens.accumulateAndGet(slotWord, 1L << player, (a, b) -> a | b);
+            playerTokens.accumulateAndGet(playerWord, 1L << slot, (a, b) -> a | b);
+        } else {
+            slotTokens.accumulateAndGet(slotWord, ~(1L << player), (a, b) -> a & b);
+            playerTokens.accumulateAndGet(playerWord, ~(1L << slot), (a, b) -> a & b);
         }
     }
 
@@ -191,11 +844,44 @@ public class Table {
      * checks if there are sets on the table
      */
     public boolean isThereSetsOnTable(){
-        List<Integer>slots=new LinkedList<>();
-        for(int i=0;i< slotToCard.length;i++){
-            slots.add(slotToCard[i]);
+        synchronized(setsOnTable){
+            return setsOnTable.count()!=0;
+        }
+    }
+
+    /**
+     * @return - the number of sets formed by the cards on the table.
+     */
+    public int countSets(){
+        synchronized(setsOnTable){
+            return setsOnTable.count();
+        }
+    }
+
+    /**
+     * @return - a list of the sets on the table, each one contains the sorted card ids of a legal set.
+     */
+    public List<int[]> setsOnTable(){
+        synchronized(setsOnTable){
+            return setsOnTable.sets();
+        }
+    }
+
+    /**
+     * @param snapshot - a snapshot of the table.
+     * @return - the sets formed by the cards of the snapshot, each one contains the sorted card ids of a legal set, or
+     * null if the sets on the table are not (yet or any more) the ones of these cards.
+     */
+    List<int[]> setsOnTable(TableSnapshot snapshot){
+        synchronized(setsOnTable){
+            int[] cards = snapshot.cards();
+            if (setsOnTable.size() != cards.length)
+                return null;
+            for (int card : cards)
+                if (!setsOnTable.contains(card))
+                    return null;
+            return setsOnTable.sets();
         }
-        return env.util.findSets(slots, 1).size()!=0;
     }
 
 }
@@ -0,0 +1,90 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+
+/**
+ * An immutable, consistent view of the cards on the table: the card in every slot as it was at one sequence number
+ * of the table (see Table.snapshot). Readers use it instead of the table's arrays, which the dealer changes under
+ * them.
+ */
+public final class TableSnapshot {
+
+    /**
+     * The sequence number of the table the snapshot was taken at (even, it grows by 2 with every change).
+     */
+    public final long sequence;
+
+    /**
+     * The card in every slot (-1 if the slot is empty).
+     */
+    private final int[] slotToCard;
+
+    /**
+     * @param sequence   - the sequence number of the table.
+     * @param slotToCard - the card in every slot (-1 if the slot is empty), owned by the snapshot from now on.
+     */
+    TableSnapshot(long sequence, int[] slotToCard) {
+        this.sequence = sequence;
+        this.slotToCard = slotToCard;
+    }
+
+    /**
+     * @param slot - the slot.
+     * @return - the card in the slot, -1 if the slot is empty.
+     */
+    public int card(int slot) {
+        return slotToCard[slot];
+    }
+
+    /**
+     * @return - the number of slots on the table.
+     */
+    public int slotCount() {
+        return slotToCard.length;
+    }
+
+    /**
+     * @param card - the card.
+     * @return - the slot the card is in, -1 if it is not on the table.
+     */
+    public int slotOf(int card) {
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (slotToCard[slot] == card)
+                return slot;
+        return -1;
+    }
+
+    /**
+     * @return - the number of cards on the table.
+     */
+    public int countCards() {
+        int cards = 0;
+        for (int card : slotToCard)
+            if (card != -1)
+                ++cards;
+        return cards;
+    }
+
+    /**
+     * @return - the cards on the table, in slot order.
+     */
+    public int[] cards() {
+        return Arrays.stream(slotToCard).filter(card -> card != -1).toArray();
+    }
+
+    /**
+     * @return - the slots that hold a card, in slot order.
+     */
+    public int[] slots() {
+        int[] slots = new int[countCards()];
+        for (int slot = 0, i = 0; slot < slotToCard.length; slot++)
+            if (slotToCard[slot] != -1)
+                slots[i++] = slot;
+        return slots;
+    }
+
+    @Override
+    public String toString() {
+        return "snapshot " + sequence + " " + Arrays.toString(slotToCard);
+    }
+}
@@ -0,0 +1,130 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SetIndexTest {
+
+    private static Config config(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("FeatureSize", Integer.toString(featureSize));
+        properties.setProperty("FeatureCount", Integer.toString(featureCount));
+        return new Config(Logger.getLogger(SetIndexTest.class.getName()), properties);
+    }
+
+    /**
+     * Finds the sets formed by some cards by testing every combination of them.
+     */
+    private static Set<String> bruteForceSets(Util util, int setSize, List<Integer> cards) {
+        Set<String> sets = new HashSet<>();
+        int[] combination = new int[setSize];
+        collect(util, cards, combination, 0, 0, sets);
+        return sets;
+    }
+
+    private static void collect(Util util, List<Integer> cards, int[] combination, int size, int from, Set<String> sets) {
+        if (size == combination.length) {
+            int[] set = combination.clone();
+            if (util.testSet(set)) {
+                Arrays.sort(set);
+                sets.add(Arrays.toString(set));
+            }
+            return;
+        }
+        for (int i = from; i < cards.size(); i++) {
+            combination[size] = cards.get(i);
+            collect(util, cards, combination, size + 1, i + 1, sets);
+        }
+    }
+
+    private static Set<String> indexedSets(SetIndex index) {
+        Set<String> sets = new HashSet<>();
+        for (int[] set : index.sets())
+            assertTrue(sets.add(Arrays.toString(set)), "set listed twice: " + Arrays.toString(set));
+        return sets;
+    }
+
+    /**
+     * Adds and removes random cards, comparing the index with a brute-force search after every change.
+     */
+    private static void checkAgainstBruteForce(Config config, int maxCards, int steps) {
+        Util util = new UtilImpl(config);
+        SetIndex index = new SetIndex(util, config, true);
+        SetIndex counter = new SetIndex(util, config, false);
+        List<Integer> cards = new ArrayList<>();
+        Random random = new Random(config.featureSize * 31L + config.featureCount);
+        for (int step = 0; step < steps; step++) {
+            int card = random.nextInt(config.deckSize);
+            boolean add = cards.size() < maxCards && (cards.isEmpty() || random.nextInt(3) != 0);
+            if (add && !cards.contains(card)) {
+                cards.add(card);
+                index.add(card);
+                counter.add(card);
+            } else if (!add) {
+                card = cards.remove(random.nextInt(cards.size()));
+                index.remove(card);
+                counter.remove(card);
+            }
+
+            Set<String> expected = bruteForceSets(util, config.featureSize, cards);
+            assertEquals(cards.size(), index.size());
+            assertEquals(expected.size(), index.count());
+            assertEquals(expected.size(), counter.count());
+            assertEquals(expected, indexedSets(index));
+            for (int c : cards)
+                assertTrue(index.contains(c));
+        }
+    }
+
+    @Test
+    void threeValueFeatures() {
+        checkAgainstBruteForce(config(3, 4), 21, 2000);
+    }
+
+    @Test
+    void fourValueFeatures() {
+        checkAgainstBruteForce(config(4, 3), 14, 500);
+    }
+
+    @Test
+    void addAndRemoveAreIdempotent() {
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+        SetIndex index = new SetIndex(util, config, true);
+        int third = util.completeSet(0, 1);
+        index.add(0);
+        index.add(1);
+        index.add(third);
+        index.add(third);
+        assertEquals(3, index.size());
+        assertEquals(1, index.count());
+
+        index.remove(1);
+        index.remove(1);
+        assertEquals(2, index.size());
+        assertEquals(0, index.count());
+        assertFalse(index.contains(1));
+        assertTrue(index.sets().isEmpty());
+    }
+
+    @Test
+    void wholeDeck() {
+        // every pair of 3-value cards completes to exactly one set: 81 * 80 / 6 sets in the deck
+        Config config = config(3, 4);
+        SetIndex index = new SetIndex(new UtilImpl(config), config, false);
+        for (int card = 0; card < config.deckSize; card++)
+            index.add(card);
+        assertEquals(config.deckSize * (config.deckSize - 1) / 6, index.count());
+    }
+}
@@ -0,0 +1,251 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class UtilImplTest {
+
+    /**
+     * @param parallelThreshold - the deck size from which findSets searches in parallel (0 never does).
+     */
+    private static Config config(int featureSize, int featureCount, int parallelThreshold) {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("FeatureSize", Integer.toString(featureSize));
+        properties.setProperty("FeatureCount", Integer.toString(featureCount));
+        properties.setProperty("ParallelFindSetsThreshold", Integer.toString(parallelThreshold));
+        return new Config(Logger.getLogger(UtilImplTest.class.getName()), properties);
+    }
+
+    /**
+     * Finds the sets formed by some cards by testing every combination of them.
+     */
+    private static Set<String> bruteForce(Util util, int setSize, List<Integer> cards) {
+        Set<String> sets = new HashSet<>();
+        collect(util, cards, new int[setSize], 0, 0, sets);
+        return sets;
+    }
+
+    private static void collect(Util util, List<Integer> cards, int[] combination, int size, int from, Set<String> sets) {
+        if (size == combination.length) {
+            int[] set = combination.clone();
+            if (util.testSet(set)) {
+                Arrays.sort(set);
+                sets.add(Arrays.toString(set));
+            }
+            return;
+        }
+        for (int i = from; i < cards.size(); i++) {
+            combination[size] = cards.get(i);
+            collect(util, cards, combination, size + 1, i + 1, sets);
+        }
+    }
+
+    /**
+     * Checks that some sets are distinct, sorted legal sets of the given cards, and returns them.
+     */
+    private static Set<String> distinctSets(Util util, List<Integer> cards, List<int[]> sets) {
+        Set<String> found = new HashSet<>();
+        for (int[] set : sets) {
+            assertTrue(util.testSet(set), Arrays.toString(set));
+            int[] sorted = set.clone();
+            Arrays.sort(sorted);
+            assertArrayEquals(sorted, set);
+            for (int card : set)
+                assertTrue(cards.contains(card), "card " + card + " is not searched");
+            assertTrue(found.add(Arrays.toString(set)), "set found twice: " + Arrays.toString(set));
+        }
+        return found;
+    }
+
+    private static List<Integer> deck(Config config) {
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; card++)
+            deck.add(card);
+        return deck;
+    }
+
+    /**
+     * @return - the whole deck and random parts of it.
+     */
+    private static List<List<Integer>> decks(Config config) {
+        List<Integer> deck = deck(config);
+        Random random = new Random(config.deckSize);
+        List<List<Integer>> decks = new ArrayList<>();
+        decks.add(deck);
+        for (int size : new int[]{0, 2, config.featureSize, 12, 21, deck.size() / 2}) {
+            List<Integer> part = new ArrayList<>(deck);
+            Collections.shuffle(part, random);
+            decks.add(new ArrayList<>(part.subList(0, Math.min(size, part.size()))));
+        }
+        return decks;
+    }
+
+    /**
+     * Compares findSets with the brute-force search on the whole deck and on random parts of it.
+     */
+    private static void checkFindSets(Config config) {
+        Util util = new UtilImpl(config);
+        for (List<Integer> cards : decks(config)) {
+            Set<String> expected = bruteForce(util, config.featureSize, cards);
+            assertEquals(expected, distinctSets(util, cards, util.findSets(cards, Integer.MAX_VALUE)));
+            List<int[]> one = util.findSets(cards, 1);
+            assertEquals(Math.min(1, expected.size()), one.size());
+            assertTrue(expected.containsAll(distinctSets(util, cards, one)));
+            List<int[]> some = util.findSets(cards, 5);
+            assertEquals(Math.min(5, expected.size()), some.size());
+            assertTrue(expected.containsAll(distinctSets(util, cards, some)));
+        }
+    }
+
+    @Test
+    void findSetsByPairCompletion() {
+        checkFindSets(config(3, 4, 0));
+    }
+
+    @Test
+    void findSetsByPairCompletionInALargerDeck() {
+        checkFindSets(config(3, 5, 0)); // 243 cards
+    }
+
+    @Test
+    void findSetsByCombinations() {
+        checkFindSets(config(4, 3, 0));
+    }
+
+    @Test
+    void findSetsInParallelByPairCompletion() {
+        // a threshold of 1 searches every deck on the fork/join pool, split down to a few first cards per task
+        assumeTrue(ForkJoinPool.getCommonPoolParallelism() > 1, "no parallel search on a single core");
+        checkFindSets(config(3, 4, 1));
+        checkFindSets(config(3, 5, 1));
+    }
+
+    @Test
+    void findSetsInParallelByCombinations() {
+        assumeTrue(ForkJoinPool.getCommonPoolParallelism() > 1, "no parallel search on a single core");
+        checkFindSets(config(4, 3, 1));
+    }
+
+    @Test
+    void parallelSearchStopsAtCount() {
+        assumeTrue(ForkJoinPool.getCommonPoolParallelism() > 1, "no parallel search on a single core");
+        Config config = config(3, 5, 1);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = deck(config);
+        for (int count = 1; count <= 64; count *= 2)
+            assertEquals(count, distinctSets(util, deck, util.findSets(deck, count)).size());
+    }
+
+    /**
+     * Compares the sequential and parallel set streams with the brute-force search (a stream reuses its arrays, so
+     * every set is copied as it is consumed).
+     */
+    private static void checkStreamSets(Config config) {
+        Util util = new UtilImpl(config);
+        for (List<Integer> cards : decks(config)) {
+            Set<String> expected = bruteForce(util, config.featureSize, cards);
+            for (boolean parallel : new boolean[]{false, true}) {
+                List<int[]> sets = util.streamSets(cards, parallel).map(int[]::clone).collect(Collectors.toList());
+                assertEquals(expected, distinctSets(util, cards, sets), parallel ? "parallel" : "sequential");
+            }
+            assertEquals(Math.min(3, expected.size()), util.streamSets(cards, true).limit(3).count());
+        }
+    }
+
+    /**
+     * Splits a spliterator as far as it goes and collects the sets of all the parts.
+     */
+    private static void collectSplits(Spliterator<int[]> spliterator, List<int[]> sets) {
+        Spliterator<int[]> split = spliterator.trySplit();
+        if (split != null)
+            collectSplits(split, sets);
+        while (spliterator.tryAdvance(set -> sets.add(set.clone()))) ;
+    }
+
+    @Test
+    void streamSetsByPairCompletion() {
+        checkStreamSets(config(3, 4, 0));
+        checkStreamSets(config(3, 5, 0));
+    }
+
+    @Test
+    void streamSetsByCombinations() {
+        checkStreamSets(config(4, 3, 0));
+    }
+
+    @Test
+    void splitSpliterators() {
+        for (Config config : new Config[]{config(3, 4, 0), config(4, 3, 0)}) {
+            Util util = new UtilImpl(config);
+            List<Integer> deck = deck(config);
+            Spliterator<int[]> spliterator = util.setSpliterator(deck, new int[config.featureSize]);
+            assertTrue(spliterator.tryAdvance(set -> { })); // split after the cursor has moved too
+            List<int[]> sets = new ArrayList<>();
+            sets.add(((SetSpliterator) spliterator).current().clone());
+            collectSplits(spliterator, sets);
+            assertEquals(bruteForce(util, config.featureSize, deck), distinctSets(util, deck, sets));
+        }
+    }
+
+    @Test
+    void spliteratorRejectsAWrongBuffer() {
+        Config config = config(3, 4, 0);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = deck(config);
+        assertThrows(IllegalArgumentException.class, () -> util.setSpliterator(deck, new int[2]));
+        assertThrows(IllegalArgumentException.class, () -> util.setSpliterator(deck, new int[4]));
+    }
+
+    @Test
+    void findSetsSkipsEmptySlots() {
+        Config config = config(3, 4, 0);
+        Util util = new UtilImpl(config);
+        List<Integer> table = new ArrayList<>(Arrays.asList(0, null, 1, null, util.completeSet(0, 1), 7));
+        List<int[]> sets = util.findSets(table, Integer.MAX_VALUE);
+        assertEquals(1, sets.size());
+        int[] expected = {0, 1, util.completeSet(0, 1)};
+        Arrays.sort(expected);
+        assertArrayEquals(expected, sets.get(0));
+    }
+
+    @Test
+    void completeSet() {
+        Config config = config(3, 4, 0);
+        Util util = new UtilImpl(config);
+        for (int a = 0; a < config.deckSize; a++)
+            for (int b = 0; b < config.deckSize; b++) {
+                if (a == b)
+                    continue;
+                int c = util.completeSet(a, b);
+                assertTrue(util.testSet(new int[]{a, b, c}));
+                assertEquals(c, util.completeSet(b, a));
+            }
+        assertEquals(-1, new UtilImpl(config(4, 3, 0)).completeSet(0, 1));
+    }
+
+    @Test
+    void cardFeatures() {
+        Config config = config(3, 4, 0);
+        Util util = new UtilImpl(config);
+        assertArrayEquals(new int[]{0, 0, 0, 0}, util.cardToFeatures(0));
+        assertArrayEquals(new int[]{0, 0, 1, 2}, util.cardToFeatures(5));
+        assertArrayEquals(new int[]{2, 2, 2, 2}, util.cardToFeatures(80));
+        assertArrayEquals(new int[][]{{0, 0, 0, 1}, {1, 0, 0, 0}}, util.cardsToFeatures(new int[]{1, 27}));
+    }
+}
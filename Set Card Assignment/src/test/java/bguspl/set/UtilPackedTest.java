@@ -0,0 +1,79 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UtilPackedTest {
+
+    private static Config config(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("FeatureSize", Integer.toString(featureSize));
+        properties.setProperty("FeatureCount", Integer.toString(featureCount));
+        return new Config(Logger.getLogger(UtilPackedTest.class.getName()), properties);
+    }
+
+    @Test
+    void packedSetTestMatchesSetTestForAllTriples() {
+        Config config = config(3, 4);
+        UtilImpl util = new UtilImpl(config);
+        UtilPacked packed = new UtilPacked(config);
+        int[] cards = new int[3];
+        int sets = 0;
+        for (cards[0] = 0; cards[0] < config.deckSize; cards[0]++)
+            for (cards[1] = cards[0] + 1; cards[1] < config.deckSize; cards[1]++)
+                for (cards[2] = cards[1] + 1; cards[2] < config.deckSize; cards[2]++) {
+                    long or = 0, and = -1;
+                    for (int card : cards) {
+                        or |= packed.packCard(card);
+                        and &= packed.packCard(card);
+                    }
+                    boolean expected = util.testSet(cards);
+                    assertEquals(expected, packed.testPackedSet(or, and), () -> "cards " + cards[0] + " " + cards[1] + " " + cards[2]);
+                    assertEquals(expected, packed.testSet(cards));
+                    if (expected)
+                        sets++;
+                }
+        assertEquals(config.deckSize * (config.deckSize - 1) / 6, sets);
+    }
+
+    @Test
+    void packedSetTestMatchesSetTestForAllQuadruples() {
+        Config config = config(4, 3);
+        UtilImpl util = new UtilImpl(config);
+        UtilPacked packed = new UtilPacked(config);
+        int[] cards = new int[4];
+        for (cards[0] = 0; cards[0] < config.deckSize; cards[0]++)
+            for (cards[1] = cards[0] + 1; cards[1] < config.deckSize; cards[1]++)
+                for (cards[2] = cards[1] + 1; cards[2] < config.deckSize; cards[2]++)
+                    for (cards[3] = cards[2] + 1; cards[3] < config.deckSize; cards[3]++)
+                        assertEquals(util.testSet(cards), packed.testSet(cards));
+    }
+
+    @Test
+    void packedCardHasOneBitPerFeature() {
+        Config config = config(3, 4);
+        UtilPacked packed = new UtilPacked(config);
+        int width = config.featureSize + 1;
+        for (int card = 0; card < config.deckSize; card++) {
+            long bits = packed.packCard(card);
+            assertEquals(config.featureCount, Long.bitCount(bits));
+            int[] features = packed.cardToFeatures(card);
+            for (int i = 0; i < config.featureCount; i++)
+                assertEquals(1L << features[i], bits >>> (i * width) & (1L << width) - 1);
+        }
+    }
+
+    @Test
+    void fits() {
+        assertTrue(UtilPacked.fits(config(3, 4)));
+        assertTrue(UtilPacked.fits(config(3, 16)));
+        assertFalse(UtilPacked.fits(config(3, 17)));
+        assertFalse(UtilPacked.fits(config(15, 5)));
+        assertThrows(IllegalArgumentException.class, () -> new UtilPacked(config(15, 5)));
+    }
+}
@@ -0,0 +1,154 @@
+package bguspl.set.ex;
+
+import bguspl.set.Clock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClaimQueueTest {
+
+    private static final int PLAYERS = 3;
+
+    private ClaimQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new ClaimQueue(PLAYERS, Clock.SYSTEM);
+    }
+
+    private static Claim claim(int player, long submitTime) {
+        return new Claim(player, new int[]{0, 1, 2}, new int[]{0, 1, 2}, new long[3], true, submitTime);
+    }
+
+    @Test
+    void pollOnEmptyQueue() {
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void claimsAreTakenInArrivalOrder() {
+        Claim first = claim(2, 1), second = claim(0, 2), third = claim(1, 3);
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+        assertTrue(queue.offer(third));
+
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+        assertSame(third, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void ringWrapsAround() {
+        // many more claims than ring entries (one per player), taken while others are still waiting
+        long time = 0;
+        assertTrue(queue.offer(claim(0, time++)));
+        assertTrue(queue.offer(claim(1, time++)));
+        for (int round = 0; round < 10 * PLAYERS; round++) {
+            int player = round % PLAYERS;
+            Claim oldest = queue.poll();
+            assertNotNull(oldest);
+            assertEquals(player, oldest.player);
+            assertFalse(queue.contains(player));
+            Claim next = claim((player + 2) % PLAYERS, time++);
+            assertTrue(queue.offer(next));
+        }
+        Claim[] batch = new Claim[PLAYERS];
+        assertEquals(2, queue.drain(batch));
+        assertEquals(batch[0].submitTime + 1, batch[1].submitTime);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void onlyOneClaimPerPlayer() {
+        assertTrue(queue.offer(claim(1, 1)));
+        assertTrue(queue.contains(1));
+        assertFalse(queue.offer(claim(1, 2)));
+
+        assertEquals(1, queue.poll().submitTime);
+        assertNull(queue.poll());
+        assertFalse(queue.contains(1));
+    }
+
+    @Test
+    void playerCanClaimAgainAfterPoll() {
+        assertTrue(queue.offer(claim(1, 1)));
+        assertEquals(1, queue.poll().submitTime);
+        assertTrue(queue.offer(claim(1, 2)));
+        assertTrue(queue.contains(1));
+        assertEquals(2, queue.poll().submitTime);
+    }
+
+    @Test
+    void cancelledClaimIsSkipped() {
+        assertTrue(queue.offer(claim(0, 1)));
+        assertTrue(queue.offer(claim(1, 2)));
+
+        assertTrue(queue.cancel(0));
+        assertFalse(queue.contains(0));
+        assertFalse(queue.cancel(0));
+
+        assertEquals(1, queue.poll().player);
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void cancelWithoutClaim() {
+        assertFalse(queue.cancel(2));
+        assertTrue(queue.offer(claim(2, 1)));
+        assertEquals(2, queue.poll().player);
+        assertFalse(queue.cancel(2));
+    }
+
+    @Test
+    void claimAfterCancelKeepsItsPlace() {
+        assertTrue(queue.offer(claim(0, 1)));
+        assertTrue(queue.offer(claim(1, 2)));
+        assertTrue(queue.cancel(0));
+
+        Claim again = claim(0, 3);
+        assertTrue(queue.offer(again)); // reuses the entry still in the ring
+        assertTrue(queue.contains(0));
+
+        assertSame(again, queue.poll());
+        assertEquals(1, queue.poll().player);
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void clearRemovesAllClaims() {
+        for (int player = 0; player < PLAYERS; player++)
+            assertTrue(queue.offer(claim(player, player)));
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        for (int player = 0; player < PLAYERS; player++) {
+            assertFalse(queue.contains(player));
+            assertTrue(queue.offer(claim(player, player)));
+        }
+    }
+
+    @Test
+    void awaitReturnsAtDeadline() {
+        long start = System.nanoTime();
+        queue.await(start + 20_000_000);
+        assertTrue(System.nanoTime() - start >= 20_000_000);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void awaitReturnsWhenClaimed() throws InterruptedException {
+        Thread player = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ignored) {}
+            queue.offer(claim(1, 1));
+        });
+        player.start();
+        queue.await(System.nanoTime() + 10_000_000_000L);
+        player.join();
+        assertEquals(1, queue.poll().player);
+    }
+}
@@ -0,0 +1,115 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterface;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClaimTest {
+
+    @Mock
+    private UserInterface ui;
+
+    private Util util;
+    private Table table;
+
+    private final int[] slots = {1, 4, 7};
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("TableDelaySeconds", "0");
+        Logger logger = Logger.getLogger(ClaimTest.class.getName());
+        Config config = new Config(logger, properties);
+        util = new UtilImpl(config);
+        table = new Table(new Env(logger, config, ui, util));
+
+        int[] set = {0, 1, util.completeSet(0, 1)};
+        table.placeCards(set, slots);
+    }
+
+    /**
+     * Builds a claim of the cards in the slots like a player does: read together with their versions and tested.
+     */
+    private Claim claim(int player, long submitTime) {
+        int[] cards = new int[slots.length];
+        long[] versions = new long[slots.length];
+        table.readSlots(slots, cards, versions);
+        boolean legal = Arrays.stream(cards).noneMatch(card -> card == -1) && util.testSet(cards);
+        return new Claim(player, slots, cards, versions, legal, submitTime);
+    }
+
+    @Test
+    void claimOfUnchangedSlotsIsCurrent() {
+        Claim claim = claim(0, 1);
+        assertTrue(claim.legal);
+        assertTrue(claim.isCurrent(table));
+        table.placeCard(40, 0); // another slot
+        assertTrue(claim.isCurrent(table));
+    }
+
+    @Test
+    void claimIsStaleOnceASlotChanged() {
+        Claim claim = claim(0, 1);
+        int card = table.cardAt(slots[1]);
+        table.removeCard(slots[1], card);
+        assertFalse(claim.isCurrent(table));
+
+        table.placeCard(card, slots[1]); // the same card back is still a change
+        assertFalse(claim.isCurrent(table));
+        assertTrue(claim(0, 2).isCurrent(table));
+    }
+
+    @Test
+    void claimWithEmptySlotIsStale() {
+        table.removeCard(slots[2], table.cardAt(slots[2]));
+        Claim claim = claim(0, 1);
+        assertFalse(claim.legal);
+        assertFalse(claim.isCurrent(table));
+    }
+
+    @Test
+    void illegalClaimKeepsItsVerdict() {
+        table.removeCard(slots[2], table.cardAt(slots[2]));
+        int other = 0;
+        while (other == util.completeSet(table.cardAt(slots[0]), table.cardAt(slots[1])) || other < 2)
+            other++;
+        table.placeCard(other, slots[2]);
+        Claim claim = claim(0, 1);
+        assertFalse(claim.legal);
+        assertTrue(claim.isCurrent(table));
+    }
+
+    @Test
+    void claimIsACopy() {
+        Claim claim = claim(3, 1);
+        int[] cards = claim.cards();
+        cards[0] = -1;
+        assertNotEquals(-1, claim.cards()[0]);
+        assertEquals(Arrays.asList(1, 4, 7), claim.slots());
+        assertThrows(UnsupportedOperationException.class, () -> claim.slots().set(0, 2));
+    }
+
+    @Test
+    void arrivalOrder() {
+        List<Claim> claims = new ArrayList<>(Arrays.asList(claim(2, 5), claim(1, 5), claim(0, 7), claim(3, 1)));
+        claims.sort(Claim.ARRIVAL_ORDER);
+        assertArrayEquals(new int[]{3, 1, 2, 0}, claims.stream().mapToInt(claim -> claim.player).toArray());
+    }
+}
@@ -0,0 +1,148 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeckTest {
+
+    private static final int DECK_SIZE = 81;
+
+    private Deck deck;
+
+    @BeforeEach
+    void setUp() {
+        deck = new Deck(DECK_SIZE, new Random(17));
+    }
+
+    /**
+     * Checks that the deck holds exactly the given cards, through all of its views.
+     */
+    private void assertCards(BitSet expected) {
+        assertEquals(expected.cardinality(), deck.size());
+        assertEquals(expected.isEmpty(), deck.isEmpty());
+        for (int card = 0; card < DECK_SIZE; card++)
+            assertEquals(expected.get(card), deck.contains(card), "card " + card);
+        int[] cards = deck.toArray();
+        Arrays.sort(cards);
+        assertArrayEquals(expected.stream().toArray(), cards);
+        List<Integer> view = deck.asList();
+        assertEquals(deck.size(), view.size());
+        for (int i = 0; i < view.size(); i++)
+            assertTrue(expected.get(view.get(i)));
+    }
+
+    private static BitSet allCards() {
+        BitSet cards = new BitSet();
+        cards.set(0, DECK_SIZE);
+        return cards;
+    }
+
+    @Test
+    void newDeckHoldsAllCards() {
+        assertCards(allCards());
+    }
+
+    @Test
+    void drawRemovesEveryCardOnce() {
+        BitSet left = allCards();
+        while (!deck.isEmpty()) {
+            int card = deck.draw();
+            assertTrue(left.get(card), "card drawn twice: " + card);
+            left.clear(card);
+            assertCards(left);
+        }
+        assertTrue(left.isEmpty());
+    }
+
+    @Test
+    void drawSeveral() {
+        int[] drawn = deck.draw(12);
+        assertEquals(12, drawn.length);
+        BitSet left = allCards();
+        for (int card : drawn) {
+            assertTrue(left.get(card));
+            left.clear(card);
+        }
+        assertCards(left);
+
+        assertEquals(DECK_SIZE - 12, deck.draw(DECK_SIZE).length);
+        assertEquals(0, deck.draw(3).length);
+        assertCards(new BitSet());
+    }
+
+    @Test
+    void takeRemovesGivenCards() {
+        int[] taken = {0, 80, 40, 41, 3};
+        assertTrue(deck.containsAll(taken));
+        deck.take(taken);
+        BitSet left = allCards();
+        for (int card : taken)
+            left.clear(card);
+        assertCards(left);
+        assertFalse(deck.containsAll(new int[]{1, 40}));
+
+        deck.take(new int[]{0, 5}); // a card already taken is skipped
+        left.clear(5);
+        assertCards(left);
+    }
+
+    @Test
+    void returnedCardsCanBeDrawnAgain() {
+        BitSet left = allCards();
+        int[] drawn = deck.draw(30);
+        for (int card : drawn)
+            left.clear(card);
+        deck.take(new int[]{left.nextSetBit(0)});
+        left.clear(left.nextSetBit(0));
+
+        for (int i = 0; i < drawn.length; i += 2) {
+            deck.add(drawn[i]);
+            left.set(drawn[i]);
+        }
+        assertCards(left);
+
+        deck.take(new int[]{drawn[0]}); // a returned card can be taken by id
+        left.clear(drawn[0]);
+        assertCards(left);
+
+        while (!deck.isEmpty())
+            assertTrue(left.get(deck.draw()));
+    }
+
+    @Test
+    void shuffleKeepsTheCards() {
+        deck.take(new int[]{7, 8, 9});
+        BitSet left = allCards();
+        left.clear(7, 10);
+        int[] before = deck.toArray();
+        deck.shuffle();
+        assertCards(left);
+        assertFalse(Arrays.equals(before, deck.toArray()));
+    }
+
+    @Test
+    void sameSeedSameOrder() {
+        Deck other = new Deck(DECK_SIZE, new Random(17));
+        deck.shuffle();
+        other.shuffle();
+        assertArrayEquals(deck.draw(DECK_SIZE), other.draw(DECK_SIZE));
+    }
+
+    @Test
+    void drawIsUniform() {
+        int[] first = new int[DECK_SIZE];
+        int decks = DECK_SIZE * 200;
+        Random random = new Random(5);
+        for (int i = 0; i < decks; i++)
+            first[new Deck(DECK_SIZE, random).draw()]++;
+        for (int card = 0; card < DECK_SIZE; card++)
+            assertTrue(first[card] > 100 && first[card] < 300, "card " + card + " drawn first " + first[card] + " times");
+    }
+}
@@ -0,0 +1,128 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterface;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class HintEngineTest {
+
+    @Mock
+    private UserInterface ui;
+
+    private Env env;
+    private Table table;
+    private HintEngine hints;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("TableDelaySeconds", "0");
+        Logger logger = Logger.getLogger(HintEngineTest.class.getName());
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        env = new Env(logger, config, ui, util);
+        table = new Table(env);
+        hints = new HintEngine(env, table);
+    }
+
+    /**
+     * Finds the sets of a snapshot by testing every triple of its slots.
+     */
+    private Set<String> bruteForce(TableSnapshot snapshot) {
+        Set<String> sets = new HashSet<>();
+        int[] slots = snapshot.slots();
+        for (int i = 0; i < slots.length; i++)
+            for (int j = i + 1; j < slots.length; j++)
+                for (int k = j + 1; k < slots.length; k++)
+                    if (env.util.testSet(new int[]{snapshot.card(slots[i]), snapshot.card(slots[j]), snapshot.card(slots[k])}))
+                        sets.add(Arrays.toString(new int[]{slots[i], slots[j], slots[k]}));
+        return sets;
+    }
+
+    private static Set<String> asStrings(List<int[]> sets) {
+        Set<String> strings = new HashSet<>();
+        for (int[] set : sets)
+            strings.add(Arrays.toString(set));
+        return strings;
+    }
+
+    @Test
+    void hintsFollowTheLayout() {
+        assertTrue(hints.current().sets.isEmpty());
+        table.placeCards(new int[]{0, 1, 2, 3, 4, 5, 9}, new int[]{0, 1, 2, 3, 4, 5, 6});
+        HintEngine.Hints now = hints.current();
+        assertEquals(bruteForce(now.snapshot), asStrings(now.sets));
+        assertFalse(now.sets.isEmpty());
+        assertSame(now, hints.current()); // cached while the layout does not change
+
+        table.removeCard(1, 1);
+        HintEngine.Hints after = hints.current();
+        assertNotSame(now, after);
+        assertEquals(bruteForce(after.snapshot), asStrings(after.sets));
+    }
+
+    @Test
+    void unprintedHintsAreTakenOncePerLayout() {
+        table.placeCards(new int[]{0, 1, 2}, new int[]{0, 1, 2});
+        assertNotNull(hints.takeUnprinted());
+        assertNull(hints.takeUnprinted());
+        table.removeCard(0, 0);
+        assertNotNull(hints.takeUnprinted());
+        assertNull(hints.takeUnprinted());
+    }
+
+    @Test
+    void hintsAreRightAndReturnUnderConstantChanges() throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(3);
+            List<Integer> deck = new ArrayList<>();
+            for (int card = 0; card < env.config.deckSize; card++)
+                deck.add(card);
+            while (!done.get()) {
+                int slot = random.nextInt(env.config.tableSize);
+                int card = table.cardAt(slot);
+                if (card != -1) {
+                    table.removeCard(slot, card);
+                    deck.add(card);
+                } else {
+                    table.placeCard(deck.remove(random.nextInt(deck.size())), slot);
+                }
+            }
+        });
+        writer.start();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+                for (int i = 0; i < 20000; i++) {
+                    HintEngine.Hints now = hints.current();
+                    assertEquals(bruteForce(now.snapshot), asStrings(now.sets));
+                }
+            });
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+}
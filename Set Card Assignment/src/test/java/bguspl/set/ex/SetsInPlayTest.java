@@ -0,0 +1,109 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterface;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class SetsInPlayTest {
+
+    @Mock
+    private UserInterface ui;
+
+    private Env env(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("FeatureSize", Integer.toString(featureSize));
+        properties.setProperty("FeatureCount", Integer.toString(featureCount));
+        Logger logger = Logger.getLogger(SetsInPlayTest.class.getName());
+        Config config = new Config(logger, properties);
+        return new Env(logger, config, ui, new UtilImpl(config));
+    }
+
+    /**
+     * Checks by testing every combination whether some cards form a set.
+     */
+    private static boolean anySet(Util util, List<Integer> cards, int[] combination, int size, int from) {
+        if (size == combination.length)
+            return util.testSet(combination.clone());
+        for (int i = from; i < cards.size(); i++) {
+            combination[size] = cards.get(i);
+            if (anySet(util, cards, combination, size + 1, i + 1))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Collects sets like the players do until none is left, checking the answer after every collected set.
+     * @return - the number of sets collected.
+     */
+    private static int collectAll(Env env, int bruteForceBelow) {
+        SetsInPlay setsInPlay = new SetsInPlay(env);
+        List<Integer> cards = new ArrayList<>();
+        for (int card = 0; card < env.config.deckSize; card++)
+            cards.add(card);
+        assertTrue(setsInPlay.any());
+
+        int collected = 0;
+        while (setsInPlay.any()) {
+            List<int[]> sets = env.util.findSets(cards, 1);
+            assertFalse(sets.isEmpty());
+            int[] set = sets.get(0);
+            for (int card : set)
+                cards.remove(Integer.valueOf(card));
+            setsInPlay.remove(set);
+            collected++;
+            if (cards.size() < bruteForceBelow)
+                assertEquals(anySet(env.util, cards, new int[env.config.featureSize], 0, 0), setsInPlay.any());
+        }
+        assertTrue(env.util.findSets(cards, 1).isEmpty());
+        return collected;
+    }
+
+    @Test
+    void threeCardSets() {
+        assertTrue(collectAll(env(3, 4), 24) >= 20);
+    }
+
+    @Test
+    void fourCardSets() {
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            assertTrue(collectAll(env(4, 3), 20) >= 10);
+        });
+    }
+
+    @Test
+    void emptySlotsAreSkipped() {
+        Env env = env(4, 3);
+        SetsInPlay setsInPlay = new SetsInPlay(env);
+        setsInPlay.remove(new int[]{-1, -1, -1, -1});
+        assertTrue(setsInPlay.any());
+    }
+
+    @Test
+    void largeDecksWithLargerSetsStartQuickly() {
+        // indexing all the sets of these decks takes seconds (4 values) or practically forever (5 values)
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertTrue(new SetsInPlay(env(4, 4)).any());
+            SetsInPlay setsInPlay = new SetsInPlay(env(5, 4));
+            assertTrue(setsInPlay.any());
+            setsInPlay.remove(new int[]{0, 1, 2, 3, 4});
+            assertTrue(setsInPlay.any());
+        });
+    }
+}
@@ -0,0 +1,229 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterface;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class TableSnapshotTest {
+
+    /**
+     * The number of whole layouts the writer cycles through, layout g holds card g * tableSize + slot in every slot.
+     */
+    private static final int LAYOUTS = 6;
+
+    @Mock
+    private UserInterface ui;
+
+    private Config config;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("TableDelaySeconds", "0");
+        Logger logger = Logger.getLogger(TableSnapshotTest.class.getName());
+        config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        table = new Table(new Env(logger, config, ui, util));
+    }
+
+    private int[] layout(int generation) {
+        int[] cards = new int[config.tableSize];
+        for (int slot = 0; slot < cards.length; slot++)
+            cards[slot] = generation * config.tableSize + slot;
+        return cards;
+    }
+
+    /**
+     * Checks that some cards read from the given slots belong to one whole layout, or that all the slots are empty.
+     */
+    private void assertOneLayout(int[] slots, int[] cards) {
+        if (cards[0] == -1) {
+            for (int card : cards)
+                assertEquals(-1, card, () -> "half empty: " + Arrays.toString(cards));
+            return;
+        }
+        int generation = cards[0] / config.tableSize;
+        assertTrue(generation < LAYOUTS);
+        for (int i = 0; i < slots.length; i++)
+            assertEquals(generation * config.tableSize + slots[i], cards[i], () -> "mixed layouts: " + Arrays.toString(cards));
+    }
+
+    @Test
+    void snapshotFollowsChanges() {
+        TableSnapshot empty = table.snapshot();
+        assertEquals(0, empty.countCards());
+        assertSame(empty, table.snapshot()); // nothing changed, nothing copied
+
+        table.placeCards(layout(1), table.freeSlots());
+        TableSnapshot placed = table.snapshot();
+        assertTrue(placed.sequence > empty.sequence);
+        assertEquals(0, placed.sequence % 2);
+        assertArrayEquals(layout(1), placed.cards());
+        assertEquals(config.tableSize, empty.slotCount());
+        assertEquals(0, empty.countCards()); // an old snapshot does not change
+
+        table.removeCard(3, layout(1)[3]);
+        TableSnapshot removed = table.snapshot();
+        assertEquals(-1, removed.card(3));
+        assertEquals(-1, removed.slotOf(layout(1)[3]));
+        assertEquals(4, removed.slotOf(layout(1)[4]));
+        assertEquals(config.tableSize - 1, removed.slots().length);
+        assertEquals(-1, table.cardAt(3));
+    }
+
+    @Test
+    void readSlotsGivesCardsWithTheirVersions() {
+        int[] slots = {0, 5, 11};
+        int[] cards = new int[slots.length];
+        long[] versions = new long[slots.length];
+        table.readSlots(slots, cards, versions);
+        assertArrayEquals(new int[]{-1, -1, -1}, cards);
+
+        table.placeCards(layout(2), table.freeSlots());
+        long[] before = versions.clone();
+        table.readSlots(slots, cards, versions);
+        for (int i = 0; i < slots.length; i++) {
+            assertEquals(layout(2)[slots[i]], cards[i]);
+            assertNotEquals(before[i], versions[i]);
+            assertEquals(table.slotVersion(slots[i]), versions[i]);
+        }
+    }
+
+    /**
+     * A Random that counts the values drawn from it.
+     */
+    private static class CountingRandom extends Random {
+        int draws;
+
+        CountingRandom(long seed) {
+            super(seed);
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            draws++;
+            return super.nextInt(bound);
+        }
+    }
+
+    @Test
+    void randomSlotDrawsOnce() throws InterruptedException {
+        CountingRandom random = new CountingRandom(7);
+        assertEquals(-1, table.randomSlot(random, true));
+        assertEquals(0, random.draws);
+
+        int[] slots = {1, 4, 8};
+        table.placeCards(new int[]{10, 40, 80}, slots);
+        boolean[] picked = new boolean[config.tableSize];
+        for (int i = 1; i <= 200; i++) {
+            int slot = table.randomSlot(random, true);
+            assertTrue(Arrays.stream(slots).anyMatch(s -> s == slot), "slot " + slot);
+            picked[slot] = true;
+            int free = table.randomSlot(random, false);
+            assertTrue(Arrays.stream(slots).noneMatch(s -> s == free), "slot " + free);
+            assertEquals(2 * i, random.draws);
+        }
+        for (int slot : slots)
+            assertTrue(picked[slot]);
+
+        // retrying a read that crossed a layout change does not draw again
+        AtomicBoolean done = new AtomicBoolean();
+        int[] allSlots = new int[config.tableSize];
+        Arrays.setAll(allSlots, slot -> slot);
+        Thread writer = new Thread(() -> {
+            while (!done.get()) {
+                table.clearTable();
+                table.placeCards(layout(1), allSlots);
+            }
+        });
+        writer.start();
+        try {
+            random.draws = 0;
+            for (int i = 0; i < 20000; i++)
+                table.randomSlot(random, true);
+            assertTrue(random.draws <= 20000, "draws " + random.draws);
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+
+    @Test
+    void readersSeeWholeLayoutsUnderConcurrentWrites() throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        List<Throwable> failures = new ArrayList<>();
+        int[] allSlots = new int[config.tableSize];
+        Arrays.setAll(allSlots, slot -> slot);
+
+        Thread writer = new Thread(() -> {
+            for (int round = 0; round < 5000; round++) {
+                table.clearTable();
+                table.placeCards(layout(round % LAYOUTS), allSlots);
+            }
+            done.set(true);
+        });
+
+        Runnable reader = () -> {
+            int[] slots = {0, 5, 6, 11};
+            int[] cards = new int[slots.length];
+            long[] versions = new long[slots.length];
+            try {
+                while (!done.get()) {
+                    TableSnapshot snapshot = table.snapshot();
+                    assertEquals(0, snapshot.sequence % 2);
+                    int[] snapshotCards = new int[allSlots.length];
+                    Arrays.setAll(snapshotCards, snapshot::card);
+                    assertOneLayout(allSlots, snapshotCards);
+
+                    table.readSlots(slots, cards, versions);
+                    assertOneLayout(slots, cards);
+                    for (long version : versions) // every slot is written by every transition
+                        assertEquals(versions[0], version);
+
+                    int occupied = table.occupiedSlots().length;
+                    assertTrue(occupied == 0 || occupied == allSlots.length, "occupied slots " + occupied);
+                }
+            } catch (Throwable failure) {
+                synchronized (failures) {
+                    failures.add(failure);
+                }
+                done.set(true);
+            }
+        };
+
+        Thread[] readers = new Thread[3];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(reader);
+            readers[i].start();
+        }
+        writer.start();
+        writer.join();
+        done.set(true);
+        for (Thread thread : readers)
+            thread.join();
+
+        if (!failures.isEmpty())
+            fail(failures.get(0));
+        assertArrayEquals(layout((5000 - 1) % LAYOUTS), table.snapshot().cards());
+    }
+}
@@ -0,0 +1,137 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterface;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TableTokenTest {
+
+    @Mock
+    private UserInterface ui;
+
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("HumanPlayers", "3");
+        Logger logger = Logger.getLogger(TableTokenTest.class.getName());
+        Config config = new Config(logger, properties);
+        table = new Table(new Env(logger, config, ui, new UtilImpl(config)));
+        table.placeCards(new int[]{10, 20, 30, 40, 50}, new int[]{0, 2, 5, 6, 9});
+    }
+
+    /**
+     * Places a token on another thread, as a player would.
+     */
+    private Thread placeTokenLater(int player, int slot, AtomicBoolean placed) {
+        Thread thread = new Thread(() -> placed.set(table.placeToken(player, slot)));
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    void tokensOfPlayers() {
+        table.setDealerWorking(false);
+        assertTrue(table.placeToken(0, 2));
+        assertTrue(table.placeToken(0, 9));
+        assertTrue(table.placeToken(1, 2));
+        assertFalse(table.placeToken(1, 3)); // an empty slot
+        verify(ui).placeToken(0, 2);
+
+        assertTrue(table.hasToken(0, 2));
+        assertTrue(table.hasToken(1, 2));
+        assertFalse(table.hasToken(1, 3));
+        assertEquals(2, table.countTokens(0));
+        assertArrayEquals(new int[]{2, 9}, table.tokenSlots(0));
+
+        table.removeToken(0, 2);
+        assertFalse(table.hasToken(0, 2));
+        assertTrue(table.hasToken(1, 2));
+        assertArrayEquals(new int[]{9}, table.tokenSlots(0));
+
+        table.removeTokens(0);
+        assertEquals(0, table.countTokens(0));
+        assertEquals(1, table.countTokens(1));
+    }
+
+    @Test
+    void removingTheTokensOfSlots() {
+        table.setDealerWorking(false);
+        table.placeToken(0, 5);
+        table.placeToken(2, 5);
+        table.placeToken(2, 6);
+        table.placeToken(1, 0);
+
+        int[] holders = table.removeTokensFromSpecifieSlot(Arrays.asList(5, 6));
+        assertArrayEquals(new int[]{0, 2}, holders);
+        assertEquals(0, table.countTokens(0));
+        assertEquals(0, table.countTokens(2));
+        assertFalse(table.hasToken(2, 6));
+        assertArrayEquals(new int[]{0}, table.tokenSlots(1));
+        verify(ui).removeTokens(5);
+
+        table.removeAllToken();
+        assertEquals(0, table.countTokens(1));
+        verify(ui).removeTokens();
+    }
+
+    @Test
+    void tokenWaitsForTheDealer() throws InterruptedException {
+        AtomicBoolean placed = new AtomicBoolean();
+        Thread player = placeTokenLater(0, 2, placed); // a new table starts with the dealer working on it
+        player.join(100);
+        assertTrue(player.isAlive());
+        assertFalse(table.hasToken(0, 2));
+
+        table.setDealerWorking(false);
+        player.join(5000);
+        assertFalse(player.isAlive());
+        assertTrue(placed.get());
+        assertTrue(table.hasToken(0, 2));
+    }
+
+    @Test
+    void tokenWaitsOnlyForTheSlotsBeingChanged() throws InterruptedException {
+        table.setDealerWorking(false);
+        table.beginSlotsChange(Collections.singletonList(5));
+        assertTrue(table.isSlotChanging(5));
+        assertFalse(table.isSlotChanging(6));
+
+        AtomicBoolean elsewhere = new AtomicBoolean();
+        Thread other = placeTokenLater(1, 6, elsewhere);
+        other.join(5000);
+        assertFalse(other.isAlive());
+        assertTrue(elsewhere.get());
+
+        AtomicBoolean placed = new AtomicBoolean();
+        Thread player = placeTokenLater(0, 5, placed);
+        player.join(100);
+        assertTrue(player.isAlive());
+        assertFalse(table.hasToken(0, 5));
+
+        table.endSlotsChange(Collections.singletonList(5));
+        player.join(5000);
+        assertFalse(player.isAlive());
+        assertTrue(placed.get());
+        assertTrue(table.hasToken(0, 5));
+    }
+}